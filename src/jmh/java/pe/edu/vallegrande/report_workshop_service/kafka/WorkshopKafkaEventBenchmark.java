@@ -0,0 +1,35 @@
+package pe.edu.vallegrande.report_workshop_service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import pe.edu.vallegrande.report_workshop_service.dto.WorkshopKafkaEventDto;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🔹 Deserialización de los eventos de workshop-events, con un ObjectMapper configurado como el de Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkshopKafkaEventBenchmark {
+
+    private static final String EVENT = "{\"id\":125,\"name\":\"Taller de lectura\",\"startDate\":\"2024-04-01\","
+            + "\"endDate\":\"2024-06-30\",\"state\":\"A\",\"description\":\"Campo que el servicio ignora\"}";
+
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public WorkshopKafkaEventDto deserialize() throws Exception {
+        return objectMapper.readValue(EVENT, WorkshopKafkaEventDto.class);
+    }
+}
@@ -0,0 +1,135 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportWithWorkshopsDto;
+import pe.edu.vallegrande.report_workshop_service.model.ReportWorkshop;
+import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
+import pe.edu.vallegrande.report_workshop_service.repository.ReportPdfVersionRepository;
+import pe.edu.vallegrande.report_workshop_service.repository.ReportWorkshopRepository;
+import pe.edu.vallegrande.report_workshop_service.repository.WorkshopCacheRepository;
+import pe.edu.vallegrande.report_workshop_service.webclient.ReportBatchLoader;
+import pe.edu.vallegrande.report_workshop_service.webclient.ReportCoreClient;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 🔹 Filtro + orden + armado por lotes de {@code findFilteredReports} sobre reportes sintéticos.
+ * El core, report_workshops y workshop_cache se simulan en memoria, así solo se mide el pipeline del servicio.
+ * El servicio se arma en un contexto de Spring con un bean por colaborador: si el servicio suma una dependencia
+ * nueva, el contexto no arranca en vez de medir con un colaborador nulo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportListingBenchmark {
+
+    private static final String[] TRIMESTERS = {"enero-marzo", "abril-junio", "julio-septiembre", "octubre-diciembre"};
+    private static final int WORKSHOPS_PER_REPORT = 5;
+
+    @Param({"100", "1000"})
+    private int reports;
+
+    private AnnotationConfigApplicationContext context;
+    private ReportWorkshopService service;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<ReportDto> coreReports = IntStream.rangeClosed(1, reports)
+                .mapToObj(id -> {
+                    ReportDto report = new ReportDto();
+                    report.setId(id);
+                    report.setYear(2020 + random.nextInt(5));
+                    report.setTrimester(TRIMESTERS[random.nextInt(TRIMESTERS.length)]);
+                    report.setStatus("A");
+                    return report;
+                })
+                .toList();
+
+        Map<Integer, List<ReportWorkshop>> workshopsByReport = new HashMap<>();
+        List<WorkshopCache> caches = new ArrayList<>();
+        for (ReportDto report : coreReports) {
+            for (int i = 0; i < WORKSHOPS_PER_REPORT; i++) {
+                int workshopId = report.getId() * WORKSHOPS_PER_REPORT + i;
+                LocalDate start = LocalDate.of(report.getYear(), 1 + random.nextInt(12), 1);
+                workshopsByReport.computeIfAbsent(report.getId(), k -> new ArrayList<>()).add(ReportWorkshop.builder()
+                        .id(workshopId)
+                        .reportId(report.getId())
+                        .workshopId(workshopId)
+                        .workshopName("Taller " + workshopId)
+                        .workshopDateStart(start)
+                        .workshopDateEnd(start.plusDays(20))
+                        .description("Descripción del taller " + workshopId)
+                        .imageUrl(new String[0])
+                        .build());
+                caches.add(new WorkshopCache(workshopId, "Taller " + workshopId, start, start.plusDays(20), "A"));
+            }
+        }
+
+        ReportCoreClient reportClient = mock(ReportCoreClient.class);
+        when(reportClient.findFiltered(any(), any(), any())).thenAnswer(inv -> Flux.fromIterable(coreReports));
+
+        ReportWorkshopRepository reportWorkshopRepo = mock(ReportWorkshopRepository.class);
+        when(reportWorkshopRepo.findByReportIdIn(any())).thenAnswer(inv -> {
+            Integer[] ids = inv.getArgument(0);
+            return Flux.fromArray(ids).flatMapIterable(id -> workshopsByReport.getOrDefault(id, List.of()));
+        });
+
+        WorkshopCacheRepository cacheRepository = mock(WorkshopCacheRepository.class);
+        when(cacheRepository.findAll()).thenReturn(Flux.fromIterable(caches));
+        WorkshopCacheStore workshopCacheStore = new WorkshopCacheStore(cacheRepository);
+        workshopCacheStore.load();
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(ReportCoreClient.class, () -> reportClient);
+        context.registerBean(ReportWorkshopRepository.class, () -> reportWorkshopRepo);
+        context.registerBean(WorkshopCacheStore.class, () -> workshopCacheStore);
+        // 🔸 Colaboradores que el listado no usa (PDF, escrituras, estadísticas); el ApplicationEventPublisher es el contexto
+        registerMock(ReportBatchLoader.class);
+        registerMock(SupabaseStorageService.class);
+        registerMock(JasperTemplateRegistry.class);
+        registerMock(ReportPdfRenderer.class);
+        registerMock(PdfArtifactCache.class);
+        registerMock(ReportPdfVersionRepository.class);
+        registerMock(TransactionalOperator.class);
+        registerMock(ReportStatsService.class);
+        context.registerBean(ReportWorkshopService.class);
+        context.refresh();
+        service = context.getBean(ReportWorkshopService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private <T> void registerMock(Class<T> type) {
+        T collaborator = mock(type);
+        context.registerBean(type, () -> collaborator);
+    }
+
+    @Benchmark
+    public List<ReportWithWorkshopsDto> findAll() {
+        return service.findFilteredReports(null, null, null, null, null).collectList().block();
+    }
+
+    @Benchmark
+    public List<ReportWithWorkshopsDto> findWithDateRange() {
+        return service.findFilteredReports(null, null, null, LocalDate.of(2022, 3, 1), LocalDate.of(2023, 9, 30))
+                .collectList()
+                .block();
+    }
+}
@@ -0,0 +1,81 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import net.sf.jasperreports.engine.JasperExportManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import pe.edu.vallegrande.report_workshop_service.model.ReportWorkshop;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 🔹 Llenado y exportación a PDF de reportPDF.jasper con 10, 100 y 1000 talleres.
+ * Las imágenes y el HTML de la descripción ya vienen resueltos (como tras las cachés), así se mide solo Jasper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReportPdfFillBenchmark {
+
+    private static final String DESCRIPTION_HTML = "<p>Actividades del trimestre con la comunidad educativa.</p>";
+
+    @Param({"10", "100", "1000"})
+    private int workshops;
+
+    private ReportPdfRenderer renderer;
+    private ReportDto report;
+    private List<ReportWorkshop> rows;
+
+    @Setup
+    public void setUp() {
+        JasperTemplateRegistry registry = new JasperTemplateRegistry(new PathMatchingResourcePatternResolver(), "classpath*:*.jasper");
+        registry.loadAll();
+        renderer = new ReportPdfRenderer(registry, null, null, null);
+
+        report = new ReportDto();
+        report.setId(1);
+        report.setYear(2024);
+        report.setTrimester("abril-junio");
+        report.setStatus("A");
+
+        rows = IntStream.rangeClosed(1, workshops)
+                .mapToObj(id -> ReportWorkshop.builder()
+                        .id(id)
+                        .reportId(1)
+                        .workshopName("Taller " + id)
+                        .description("Descripción del taller " + id + " con los estudiantes.")
+                        .imageUrl(new String[0])
+                        .build())
+                .toList();
+    }
+
+    @Benchmark
+    public JasperPrint fill() throws Exception {
+        return renderer.fill(report, rows, Map.of(), DESCRIPTION_HTML);
+    }
+
+    @Benchmark
+    public void fillAndExport(Blackhole blackhole) throws Exception {
+        JasperPrint print = renderer.fill(report, rows, Map.of(), DESCRIPTION_HTML);
+        JasperExportManager.exportReportToPdfStream(print, new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(len);
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import org.openjdk.jmh.annotations.*;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportWorkshopDto;
+import pe.edu.vallegrande.report_workshop_service.model.ReportWorkshop;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🔹 Conversión entre {@link ReportWorkshop} y {@link ReportWorkshopDto} (toDto / fromDto),
+ * que se ejecuta por cada taller en listados, altas y ediciones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportWorkshopMappingBenchmark {
+
+    private ReportWorkshop entity;
+    private ReportWorkshopDto dto;
+
+    @Setup
+    public void setUp() {
+        entity = ReportWorkshop.builder()
+                .id(1)
+                .reportId(10)
+                .workshopId(100)
+                .workshopName("Taller de lectura")
+                .workshopDateStart(LocalDate.of(2024, 4, 1))
+                .workshopDateEnd(LocalDate.of(2024, 6, 30))
+                .description("Lectura compartida con los estudiantes.")
+                .imageUrl(new String[]{"https://example.com/a.jpg", "https://example.com/b.jpg"})
+                .build();
+        dto = ReportWorkshopService.toDto(entity);
+    }
+
+    @Benchmark
+    public ReportWorkshopDto toDto() {
+        return ReportWorkshopService.toDto(entity);
+    }
+
+    @Benchmark
+    public ReportWorkshop fromDto() {
+        return ReportWorkshopService.fromDto(dto);
+    }
+}
@@ -1,15 +1,24 @@
 package pe.edu.vallegrande.report_workshop_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
 
 /**
  * Configura la seguridad del microservicio:
- * - Permite acceso sin autenticación a Swagger y Actuator
+ * - Permite acceso sin autenticación a Swagger y al health de Actuator
+ * - Protege /actuator/prometheus con usuario y contraseña propios del scraper (rol SCRAPE)
  * - Requiere JWT para acceder al resto de los endpoints
  * - Cors
  */
@@ -17,12 +26,44 @@ import org.springframework.security.web.server.SecurityWebFilterChain;
 @EnableWebFluxSecurity
 public class SecurityConfig {
 
+    private static final String PROMETHEUS_PATH = "/actuator/prometheus";
+    private static final String SCRAPE_ROLE = "SCRAPE";
+
+    /**
+     * 🔒 Métricas solo para el scraper, con autenticación básica; se evalúa antes que la cadena JWT.
+     * Sin contraseña configurada el endpoint queda cerrado.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityWebFilterChain metricsSecurityWebFilterChain(
+            ServerHttpSecurity http,
+            @Value("${metrics.scrape.username:prometheus}") String username,
+            @Value("${metrics.scrape.password:}") String password
+    ) {
+        http.securityMatcher(ServerWebExchangeMatchers.pathMatchers(PROMETHEUS_PATH))
+                .csrf(ServerHttpSecurity.CsrfSpec::disable);
+        if (password.isBlank()) {
+            return http.authorizeExchange(auth -> auth.anyExchange().denyAll()).build();
+        }
+
+        var scraper = User.withUsername(username)
+                .password(PasswordEncoderFactories.createDelegatingPasswordEncoder().encode(password))
+                .roles(SCRAPE_ROLE)
+                .build();
+        return http
+                .authorizeExchange(auth -> auth.anyExchange().hasRole(SCRAPE_ROLE))
+                .httpBasic(basic -> basic.authenticationManager(
+                        new UserDetailsRepositoryReactiveAuthenticationManager(new MapReactiveUserDetailsService(scraper))))
+                .build();
+    }
+
     @Bean
     public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
         return http
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
                 .authorizeExchange(auth -> auth
                         .pathMatchers("/swagger-ui.html").permitAll()
+                        .pathMatchers("/actuator/health/**").permitAll()
                         .anyExchange().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -2,16 +2,41 @@ package pe.edu.vallegrande.report_workshop_service.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
+import pe.edu.vallegrande.report_workshop_service.dto.PdfArtifact;
+import pe.edu.vallegrande.report_workshop_service.dto.PdfJobDto;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportPageDto;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportStatsDto;
 import pe.edu.vallegrande.report_workshop_service.dto.ReportWithWorkshopsDto;
+import pe.edu.vallegrande.report_workshop_service.service.ConcurrentReportUpdateException;
+import pe.edu.vallegrande.report_workshop_service.service.InvalidCursorException;
+import pe.edu.vallegrande.report_workshop_service.service.PdfArtifactCache;
+import pe.edu.vallegrande.report_workshop_service.service.PdfJobNotReadyException;
+import pe.edu.vallegrande.report_workshop_service.service.PdfJobService;
+import pe.edu.vallegrande.report_workshop_service.service.PdfRenderRejectedException;
+import pe.edu.vallegrande.report_workshop_service.service.ReportExportService;
+import pe.edu.vallegrande.report_workshop_service.service.ReportStatsService;
 import pe.edu.vallegrande.report_workshop_service.service.ReportWorkshopService;
+import pe.edu.vallegrande.report_workshop_service.service.TooManyIdsException;
+import pe.edu.vallegrande.report_workshop_service.webclient.UpstreamOverloadedException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -20,11 +45,18 @@ import java.time.LocalDate;
 public class ReportController {
 
     private final ReportWorkshopService service;
+    private final PdfJobService pdfJobService;
+    private final ReportExportService exportService;
+    private final ReportStatsService statsService;
+    private final PdfArtifactCache artifactCache;
+
+    private static final int PDF_READ_BUFFER_SIZE = 64 * 1024;
+    private static final int UPSTREAM_RETRY_AFTER_SECONDS = 2;
 
     /**
-     * 🔹 Listar todos los reportes con filtros opcionales
+     * 🔹 Listar todos los reportes con filtros opcionales (JSON o application/x-ndjson en streaming)
      */
-    @GetMapping
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     public Flux<ReportWithWorkshopsDto> getAll(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String trimester,
@@ -35,6 +67,42 @@ public class ReportController {
         return service.findFilteredReports(status, trimester, year, workshopDateStart, workshopDateEnd);
     }
 
+    /**
+     * 🔹 Listar reportes paginados por cursor: enviar en "cursor" el nextCursor de la página anterior
+     */
+    @GetMapping(params = "limit")
+    public Mono<ReportPageDto> getPage(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String trimester,
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate workshopDateStart,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate workshopDateEnd,
+            @RequestParam(required = false) String cursor,
+            @RequestParam int limit
+    ) {
+        return service.findFilteredReportsPage(status, trimester, year, workshopDateStart, workshopDateEnd, cursor, limit);
+    }
+
+    /**
+     * 📊 Estadísticas para el dashboard (reportes por año/trimestre y estado, talleres por reporte y por estado)
+     */
+    @GetMapping("/stats")
+    public Mono<ReportStatsDto> getStats() {
+        return statsService.snapshot();
+    }
+
+    /**
+     * 🔹 Obtener varios reportes por ID (?ids=1,2,3) con filtros de fecha
+     */
+    @GetMapping("/batch")
+    public Flux<ReportWithWorkshopsDto> getBatch(
+            @RequestParam List<Integer> ids,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate workshopDateStart,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate workshopDateEnd
+    ) {
+        return service.findByIdsWithDateFilter(ids, workshopDateStart, workshopDateEnd);
+    }
+
     /**
      * 🔹 Obtener un reporte por ID con filtros de fecha
      */
@@ -95,11 +163,132 @@ public class ReportController {
      * 📄 Generar PDF con filtro por fechas
      */
     @GetMapping("/{reportId}/pdf")
-    public Mono<ResponseEntity<byte[]>> generatePdf(
+    public Mono<Void> generatePdf(
+            @PathVariable Integer reportId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate workshopDateStart,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate workshopDateEnd,
+            ServerHttpResponse response
+    ) {
+        return service.generatePdfByIdWithDateFilter(reportId, workshopDateStart, workshopDateEnd)
+                .flatMap(artifact -> writePdf(artifact, response));
+    }
+
+    /**
+     * 📦 Descargar en un ZIP el PDF de todos los reportes que cumplen los filtros
+     */
+    @GetMapping("/export.zip")
+    public Mono<Void> exportZip(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String trimester,
+            @RequestParam(required = false) Integer year,
+            ServerHttpResponse response
+    ) {
+        response.getHeaders().setContentType(MediaType.parseMediaType("application/zip"));
+        response.getHeaders().setContentDispositionFormData("attachment", "reportes" + (year != null ? "_" + year : "") + ".zip");
+        return response.writeWith(exportService.exportZip(status, trimester, year));
+    }
+
+    /**
+     * 📝 Encolar la exportación del PDF en segundo plano (para reportes grandes).
+     * Devuelve 202 con el trabajo; si ya había uno activo con los mismos parámetros, se devuelve ese.
+     */
+    @PostMapping("/{reportId}/pdf-jobs")
+    public Mono<ResponseEntity<PdfJobDto>> createPdfJob(
             @PathVariable Integer reportId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate workshopDateStart,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate workshopDateEnd
     ) {
-        return service.generatePdfByIdWithDateFilter(reportId, workshopDateStart, workshopDateEnd);
+        return pdfJobService.submit(reportId, workshopDateStart, workshopDateEnd)
+                .map(job -> ResponseEntity.accepted()
+                        .location(URI.create("/api/reports-workshop/pdf-jobs/" + job.getId()))
+                        .body(job));
+    }
+
+    /**
+     * 🔍 Estado de un trabajo de exportación
+     */
+    @GetMapping("/pdf-jobs/{jobId}")
+    public Mono<ResponseEntity<PdfJobDto>> getPdfJob(@PathVariable UUID jobId) {
+        return pdfJobService.findById(jobId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 📄 Descargar el PDF de un trabajo terminado (409 si todavía no terminó)
+     */
+    @GetMapping("/pdf-jobs/{jobId}/download")
+    public Mono<Void> downloadPdfJob(@PathVariable UUID jobId, ServerHttpResponse response) {
+        return pdfJobService.download(jobId)
+                .flatMap(artifact -> writePdf(artifact, response))
+                .switchIfEmpty(Mono.defer(() -> {
+                    response.setStatusCode(HttpStatus.NOT_FOUND);
+                    return response.setComplete();
+                }));
+    }
+
+    /**
+     * ♻️ Recargar una plantilla Jasper sin reiniciar el servicio
+     */
+    @PostMapping("/templates/{name}/reload")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> reloadTemplate(@PathVariable String name) {
+        return service.reloadTemplate(name);
+    }
+
+    @ExceptionHandler({InvalidCursorException.class, TooManyIdsException.class})
+    public ResponseEntity<String> handleBadRequest(RuntimeException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler({PdfJobNotReadyException.class, ConcurrentReportUpdateException.class})
+    public ResponseEntity<String> handleConflict(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(UpstreamOverloadedException.class)
+    public ResponseEntity<String> handleUpstreamOverloaded(UpstreamOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(UPSTREAM_RETRY_AFTER_SECONDS))
+                .body(e.getMessage());
+    }
+
+    /**
+     * ⏳ Cola de PDFs llena: 503 con Retry-After para que el cliente reintente más tarde
+     */
+    @ExceptionHandler(PdfRenderRejectedException.class)
+    public ResponseEntity<String> handleRenderRejected(PdfRenderRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
+    /**
+     * 🔸 Escribe el PDF según su origen: redirección a Supabase o archivo local (zero-copy).
+     * El archivo local queda fijado en la caché hasta que la respuesta termina, falla o se cancela.
+     */
+    private Mono<Void> writePdf(PdfArtifact artifact, ServerHttpResponse response) {
+        if (artifact.getRedirectUrl() != null) {
+            response.setStatusCode(HttpStatus.FOUND);
+            response.getHeaders().setLocation(URI.create(artifact.getRedirectUrl()));
+            return response.setComplete();
+        }
+
+        response.getHeaders().setContentType(MediaType.APPLICATION_PDF);
+        response.getHeaders().setContentDispositionFormData("attachment", artifact.getFileName());
+
+        Path file = artifact.getFile();
+        return Mono.usingWhen(
+                Mono.fromSupplier(() -> artifactCache.pin(file)),
+                pin -> Mono.fromCallable(() -> Files.size(file))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMap(size -> {
+                            response.getHeaders().setContentLength(size);
+                            if (response instanceof ZeroCopyHttpOutputMessage zeroCopy) {
+                                return zeroCopy.writeWith(file, 0, size);
+                            }
+                            return response.writeWith(DataBufferUtils.read(file, response.bufferFactory(), PDF_READ_BUFFER_SIZE));
+                        }),
+                pin -> Mono.fromRunnable(pin::release));
     }
 }
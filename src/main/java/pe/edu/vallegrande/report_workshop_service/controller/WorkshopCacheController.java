@@ -1,12 +1,16 @@
 package pe.edu.vallegrande.report_workshop_service.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import pe.edu.vallegrande.report_workshop_service.dto.WorkshopCachePageDto;
 import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
 import pe.edu.vallegrande.report_workshop_service.service.WorkshopCacheService;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
 @CrossOrigin(origins = "*")
 @RestController
 @RequestMapping("/api/workshop-cache")
@@ -23,6 +27,20 @@ public class WorkshopCacheController {
         return service.findAll(status);
     }
 
+    /**
+     * 🔹 Listar talleres del cache paginados (keyset): enviar en "after" el nextCursor de la página anterior.
+     */
+    @GetMapping(params = "limit")
+    public Mono<WorkshopCachePageDto> getPage(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @RequestParam(required = false) Integer after,
+            @RequestParam int limit
+    ) {
+        return service.findPage(status, dateFrom, dateTo, after, limit);
+    }
+
     /**
      * 🔹 Obtener un taller del cache por ID.
      */
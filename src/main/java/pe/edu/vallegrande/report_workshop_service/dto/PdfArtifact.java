@@ -0,0 +1,31 @@
+package pe.edu.vallegrande.report_workshop_service.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * 🔹 Resultado de pedir el PDF de un reporte. Solo uno de sus orígenes está presente:
+ * - redirectUrl: copia ya guardada en Supabase (objectName es su nombre en el bucket, con la versión)
+ * - file: copia en la caché local del nodo (se envía con transferencia zero-copy);
+ *   los PDFs recién generados también llegan así, una vez escritos por completo en la caché
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PdfArtifact {
+
+    private final String fileName;
+    private final String objectName;
+    private final String redirectUrl;
+    private final Path file;
+
+    public static PdfArtifact redirect(String fileName, String objectName, String redirectUrl) {
+        return new PdfArtifact(fileName, objectName, redirectUrl, null);
+    }
+
+    public static PdfArtifact file(String fileName, Path file) {
+        return new PdfArtifact(fileName, null, null, file);
+    }
+}
@@ -0,0 +1,26 @@
+package pe.edu.vallegrande.report_workshop_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfJobDto {
+    private UUID id;
+    private Integer reportId;
+    private LocalDate workshopDateStart;
+    private LocalDate workshopDateEnd;
+    private String status;
+    private Integer attempts;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    // Solo presente cuando el trabajo terminó (status DONE)
+    private String downloadUrl;
+}
@@ -0,0 +1,17 @@
+package pe.edu.vallegrande.report_workshop_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportPageDto {
+    private List<ReportWithWorkshopsDto> items;
+
+    // Cursor opaco (año, trimestre, id) del último reporte; se envía como "cursor" para la siguiente página (null si no hay más)
+    private String nextCursor;
+}
@@ -0,0 +1,24 @@
+package pe.edu.vallegrande.report_workshop_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportStatsDto {
+    private long totalReports;
+    // Año → trimestre → cantidad de reportes
+    private Map<String, Map<String, Long>> reportsByYearAndTrimester;
+    private Map<String, Long> reportsByStatus;
+    private long totalWorkshops;
+    private double averageWorkshopsPerReport;
+    // Talleres de workshop_cache por status (activos / inactivos)
+    private Map<String, Integer> workshopsByStatus;
+    // Momento del cálculo
+    private Instant generatedAt;
+}
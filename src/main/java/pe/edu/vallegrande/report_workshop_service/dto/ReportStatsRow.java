@@ -0,0 +1,19 @@
+package pe.edu.vallegrande.report_workshop_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 🔹 Fila agregada de /stats: reportes y talleres de un año, trimestre y estado (nulos si el reporte no tiene datos).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportStatsRow {
+    private Integer year;
+    private String trimester;
+    private String status;
+    private Long reports;
+    private Long workshops;
+}
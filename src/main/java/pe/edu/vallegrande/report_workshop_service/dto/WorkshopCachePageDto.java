@@ -0,0 +1,18 @@
+package pe.edu.vallegrande.report_workshop_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkshopCachePageDto {
+    private List<WorkshopCache> items;
+
+    // Id del último taller de la página; se envía como "after" para pedir la siguiente (null si no hay más)
+    private Integer nextCursor;
+}
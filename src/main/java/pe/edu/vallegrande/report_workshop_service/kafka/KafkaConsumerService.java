@@ -4,68 +4,106 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 import pe.edu.vallegrande.report_workshop_service.dto.WorkshopKafkaEventDto;
 import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
+import pe.edu.vallegrande.report_workshop_service.repository.ReportWorkshopRepository;
 import pe.edu.vallegrande.report_workshop_service.repository.WorkshopCacheRepository;
-import reactor.core.publisher.Mono;
+import pe.edu.vallegrande.report_workshop_service.service.ReportChangedEvent;
+import pe.edu.vallegrande.report_workshop_service.service.WorkshopCacheStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaConsumerService {
 
+    private static final Duration WRITE_TIMEOUT = Duration.ofSeconds(30);
+
     private final WorkshopCacheRepository cacheRepository;
     private final ObjectMapper objectMapper;
-    private final R2dbcEntityTemplate template;
+    private final ReportWorkshopRepository reportWorkshopRepository;
+    private final WorkshopCacheStore workshopCacheStore;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * 🔹 Escucha eventos del topic "workshop-events" y sincroniza la información en el cache de reportes.
-     * Convierte el JSON recibido a DTO, lo transforma en entidad, y lo guarda o actualiza.
+     * 🔹 Escucha el topic "workshop-events" por lotes y sincroniza el cache de talleres.
+     * Todo el poll se deserializa, se deja un solo evento por taller (gana el de mayor offset)
+     * y se aplica con un único INSERT ... ON CONFLICT multi-fila.
+     * Los offsets se confirman solo después de que la escritura en base de datos terminó, y recién entonces
+     * se actualiza la réplica en memoria; si falla, la excepción hace que el contenedor vuelva a entregar el lote.
      */
-    @KafkaListener(topics = "workshop-events")
-    public void consumeWorkshopEvent(ConsumerRecord<String, String> record) {
-        try {
-            String json = record.value();
-            WorkshopKafkaEventDto dto = objectMapper.readValue(json, WorkshopKafkaEventDto.class);
+    @KafkaListener(topics = "workshop-events", batch = "true")
+    public void consumeWorkshopEvents(List<ConsumerRecord<String, String>> records, Acknowledgment ack) {
+        List<WorkshopCache> workshops = collapse(records);
+
+        if (workshops.isEmpty()) {
+            ack.acknowledge();
+            return;
+        }
+
+        // 💾 Inserta o actualiza todo el lote en una sola ida a la base de datos
+        Long rows = cacheRepository.upsertAll(workshops).block(WRITE_TIMEOUT);
+        ack.acknowledge();
+        workshopCacheStore.upsertAll(workshops);
+        log.info("✅ Lote de {} eventos aplicado: {} talleres insertados/actualizados", records.size(), rows);
+
+        // 📁 Los PDFs se generan con las filas de report_workshops, que guardan su propia copia del nombre y las fechas
+        // del taller: este evento no cambia su contenido, así que las copias guardadas (locales y en Supabase) se siguen
+        // sirviendo hasta que una edición del reporte las reemplace. Solo se avisa a los pre-renders pendientes.
+        Integer[] workshopIds = workshops.stream().map(WorkshopCache::getId).toArray(Integer[]::new);
+        reportWorkshopRepository.findReportIdsByWorkshopIdIn(workshopIds)
+                .subscribe(reportId -> eventPublisher.publishEvent(new ReportChangedEvent(reportId, null)),
+                        e -> log.warn("⚠️ No se pudieron avisar los cambios de los talleres {}", workshopIds, e));
+    }
+
+    /**
+     * 🔸 Deserializa los registros y deja el último evento de cada taller.
+     * Dentro de una partición gana el offset mayor; los eventos inválidos se descartan con aviso.
+     */
+    private List<WorkshopCache> collapse(List<ConsumerRecord<String, String>> records) {
+        Map<Integer, ConsumerRecord<String, String>> latestRecords = new LinkedHashMap<>();
+        Map<Integer, WorkshopCache> latest = new LinkedHashMap<>();
+
+        for (ConsumerRecord<String, String> record : records) {
+            WorkshopKafkaEventDto dto;
+            try {
+                dto = objectMapper.readValue(record.value(), WorkshopKafkaEventDto.class);
+            } catch (Exception e) {
+                log.error("❌ Error procesando evento Kafka (offset {}): {}", record.offset(), e.getMessage(), e);
+                continue;
+            }
 
             // ⚠️ Validación básica
             if (dto.getId() == null || dto.getName() == null) {
                 log.warn("⚠️ Evento ignorado por datos incompletos: {}", dto);
-                return;
+                continue;
             }
 
-            log.info("📥 Recibido evento Kafka: {}", dto);
+            ConsumerRecord<String, String> previous = latestRecords.get(dto.getId());
+            if (previous != null && previous.partition() == record.partition() && previous.offset() > record.offset()) {
+                continue;
+            }
+            latestRecords.put(dto.getId(), record);
 
             // 🔄 Construye la entidad WorkshopCache desde el DTO
-            WorkshopCache cache = WorkshopCache.builder()
+            latest.put(dto.getId(), WorkshopCache.builder()
                     .id(dto.getId())
                     .name(dto.getName())
                     .dateStart(dto.getDateStart())
                     .dateEnd(dto.getDateEnd())
-                    .status(dto.getStatus())
-                    .build();
-
-            // 💾 Si ya existe, actualiza; si no, inserta nuevo registro
-            cacheRepository.findById(dto.getId())
-                    .flatMap(existing -> {
-                        existing.setName(cache.getName());
-                        existing.setDateStart(cache.getDateStart());
-                        existing.setDateEnd(cache.getDateEnd());
-                        existing.setStatus(cache.getStatus());
-                        return cacheRepository.save(existing);
-                    })
-                    .switchIfEmpty(Mono.defer(() ->
-                            template.insert(WorkshopCache.class).using(cache)
-                    ))
-                    .subscribe(saved ->
-                            log.info("✅ WorkshopCache insertado/actualizado: {}", saved)
-                    );
-
-        } catch (Exception e) {
-            log.error("❌ Error procesando evento Kafka: {}", e.getMessage(), e);
+                    // Se guarda en mayúsculas: las búsquedas por status comparan contra el valor normalizado
+                    .status(dto.getStatus() == null ? null : dto.getStatus().toUpperCase())
+                    .build());
         }
+        return new ArrayList<>(latest.values());
     }
 }
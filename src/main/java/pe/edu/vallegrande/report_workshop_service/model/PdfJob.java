@@ -0,0 +1,63 @@
+package pe.edu.vallegrande.report_workshop_service.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 🔹 Trabajo de exportación de PDF. Estados: PENDING → RUNNING → DONE | FAILED.
+ * Guarda una copia del reporte (JSON) para poder procesarse sin el JWT de quien lo pidió.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table("pdf_jobs")
+public class PdfJob {
+
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    private UUID id;
+
+    @Column("report_id")
+    private Integer reportId;
+
+    @Column("workshop_date_start")
+    private LocalDate workshopDateStart;
+
+    @Column("workshop_date_end")
+    private LocalDate workshopDateEnd;
+
+    @Column("file_name")
+    private String fileName;
+
+    @Column("report_snapshot")
+    private String reportSnapshot;
+
+    private String status;
+
+    private Integer attempts;
+
+    private String error;
+
+    @Column("locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column("next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,33 @@
+package pe.edu.vallegrande.report_workshop_service.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * 🔹 Copia local de los datos del reporte que usan las estadísticas (año, trimestre, estado),
+ * para calcularlas en SQL sin llamar al core.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table("report_meta")
+public class ReportMeta {
+
+    @Id
+    @Column("report_id")
+    private Integer reportId;
+
+    private Integer year;
+
+    private String trimester;
+
+    private String status;
+
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,30 @@
+package pe.edu.vallegrande.report_workshop_service.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * 🔹 Versión de los PDFs de un reporte, compartida por todas las instancias.
+ * Cada edición o baja la incrementa; las copias guardadas (caché local de cada nodo y Supabase)
+ * llevan la versión en su nombre, así una copia de una versión anterior nunca se vuelve a servir.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table("report_pdf_versions")
+public class ReportPdfVersion {
+
+    @Id
+    @Column("report_id")
+    private Integer reportId;
+
+    private Long version;
+
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,51 @@
+package pe.edu.vallegrande.report_workshop_service.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import pe.edu.vallegrande.report_workshop_service.model.PdfJob;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Repository
+public interface PdfJobRepository extends ReactiveCrudRepository<PdfJob, UUID> {
+
+    // 💾 Encola un trabajo; si ya hay uno activo para el mismo PDF no inserta nada (índice único parcial)
+    @Query("INSERT INTO pdf_jobs (id, report_id, workshop_date_start, workshop_date_end, file_name, report_snapshot, status) "
+            + "VALUES (:id, :reportId, :workshopDateStart, :workshopDateEnd, :fileName, :reportSnapshot, 'PENDING') "
+            + "ON CONFLICT (file_name) WHERE status IN ('PENDING', 'RUNNING') DO NOTHING RETURNING *")
+    Mono<PdfJob> insertIfNoneActive(UUID id, Integer reportId, LocalDate workshopDateStart, LocalDate workshopDateEnd,
+                                    String fileName, String reportSnapshot);
+
+    // 🔍 Trabajo activo (pendiente o en curso) del mismo PDF
+    @Query("SELECT * FROM pdf_jobs WHERE file_name = :fileName AND status IN ('PENDING', 'RUNNING') LIMIT 1")
+    Mono<PdfJob> findActiveByFileName(String fileName);
+
+    // 🔒 Toma el trabajo pendiente más antiguo, o uno en curso cuyo lease venció (nodo caído o reinicio).
+    // SKIP LOCKED permite que varias instancias consuman la cola sin bloquearse entre sí.
+    @Query("UPDATE pdf_jobs SET status = 'RUNNING', attempts = attempts + 1, "
+            + "locked_until = now() + :leaseSeconds * interval '1 second', updated_at = now() "
+            + "WHERE id = (SELECT id FROM pdf_jobs WHERE (status = 'PENDING' AND next_attempt_at <= now()) "
+            + "OR (status = 'RUNNING' AND locked_until < now()) "
+            + "ORDER BY created_at LIMIT 1 FOR UPDATE SKIP LOCKED) RETURNING *")
+    Mono<PdfJob> claimNext(int leaseSeconds);
+
+    // ✏️ Cierra el intento actual con el estado indicado
+    @Modifying
+    @Query("UPDATE pdf_jobs SET status = :status, error = :error, locked_until = NULL, updated_at = now() WHERE id = :id")
+    Mono<Long> finish(UUID id, String status, String error);
+
+    // ⏳ Devuelve a la cola un intento fallido; no se vuelve a tomar hasta que pase la espera
+    @Modifying
+    @Query("UPDATE pdf_jobs SET status = 'PENDING', error = :error, locked_until = NULL, "
+            + "next_attempt_at = now() + :delaySeconds * interval '1 second', updated_at = now() WHERE id = :id")
+    Mono<Long> retryLater(UUID id, String error, long delaySeconds);
+
+    // 🔁 Devuelve el trabajo a la cola sin contar el intento (render rechazado por carga)
+    @Modifying
+    @Query("UPDATE pdf_jobs SET status = 'PENDING', attempts = attempts - 1, locked_until = NULL, updated_at = now() WHERE id = :id")
+    Mono<Long> release(UUID id);
+}
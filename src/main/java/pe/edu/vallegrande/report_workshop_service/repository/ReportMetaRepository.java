@@ -0,0 +1,38 @@
+package pe.edu.vallegrande.report_workshop_service.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportStatsRow;
+import pe.edu.vallegrande.report_workshop_service.model.ReportMeta;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReportMetaRepository extends ReactiveCrudRepository<ReportMeta, Integer> {
+
+    // 💾 Guarda o reemplaza los datos del reporte usados por las estadísticas
+    @Modifying
+    @Query("INSERT INTO report_meta (report_id, year, trimester, status, updated_at) "
+            + "VALUES (:reportId, :year, :trimester, :status, now()) "
+            + "ON CONFLICT (report_id) DO UPDATE SET year = EXCLUDED.year, trimester = EXCLUDED.trimester, "
+            + "status = EXCLUDED.status, updated_at = now()")
+    Mono<Long> upsert(Integer reportId, Integer year, String trimester, String status);
+
+    // 💾 Completa los datos de un reporte anterior a la tabla sin pisar los que ya se guardaron
+    @Modifying
+    @Query("INSERT INTO report_meta (report_id, year, trimester, status, updated_at) "
+            + "VALUES (:reportId, :year, :trimester, :status, now()) ON CONFLICT (report_id) DO NOTHING")
+    Mono<Long> insertIfAbsent(Integer reportId, Integer year, String trimester, String status);
+
+    // 📊 Reportes y talleres por año, trimestre y estado; los reportes con talleres pero sin datos quedan con nulos
+    @Query("SELECT m.year AS year, LOWER(m.trimester) AS trimester, UPPER(m.status) AS status, "
+            + "COUNT(*) AS reports, COALESCE(SUM(w.workshops), 0)::bigint AS workshops "
+            + "FROM (SELECT report_id FROM report_meta UNION SELECT report_id FROM report_workshops) r "
+            + "LEFT JOIN report_meta m ON m.report_id = r.report_id "
+            + "LEFT JOIN (SELECT report_id, COUNT(*) AS workshops FROM report_workshops GROUP BY report_id) w "
+            + "ON w.report_id = r.report_id "
+            + "GROUP BY 1, 2, 3")
+    Flux<ReportStatsRow> countByPeriodAndStatus();
+}
@@ -0,0 +1,21 @@
+package pe.edu.vallegrande.report_workshop_service.repository;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import pe.edu.vallegrande.report_workshop_service.model.ReportPdfVersion;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReportPdfVersionRepository extends ReactiveCrudRepository<ReportPdfVersion, Integer> {
+
+    // 🔍 Versión vigente de los PDFs del reporte (0 si nunca se editó)
+    @Query("SELECT COALESCE((SELECT version FROM report_pdf_versions WHERE report_id = :reportId), 0)")
+    Mono<Long> currentVersion(Integer reportId);
+
+    // ✏️ Pasa los PDFs del reporte a una versión nueva y la devuelve
+    @Query("INSERT INTO report_pdf_versions (report_id, version, updated_at) VALUES (:reportId, 1, now()) "
+            + "ON CONFLICT (report_id) DO UPDATE SET version = report_pdf_versions.version + 1, updated_at = now() "
+            + "RETURNING version")
+    Mono<Long> bump(Integer reportId);
+}
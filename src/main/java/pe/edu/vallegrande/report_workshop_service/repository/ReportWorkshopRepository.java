@@ -1,5 +1,7 @@
 package pe.edu.vallegrande.report_workshop_service.repository;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import pe.edu.vallegrande.report_workshop_service.model.ReportWorkshop;
@@ -7,11 +9,28 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface ReportWorkshopRepository extends ReactiveCrudRepository<ReportWorkshop, Integer> {
+public interface ReportWorkshopRepository extends ReactiveCrudRepository<ReportWorkshop, Integer>, ReportWorkshopRepositoryCustom {
 
     // 🔍 Obtener talleres por ID de reporte
     Flux<ReportWorkshop> findByReportId(Integer reportId);
 
-    // ❌ Eliminar todos los talleres al editar un reporte
+    // 🔒 Talleres del reporte bloqueados hasta el fin de la transacción (edición concurrente del mismo reporte)
+    @Query("SELECT * FROM report_workshops WHERE report_id = :reportId ORDER BY id FOR UPDATE")
+    Flux<ReportWorkshop> findByReportIdForUpdate(Integer reportId);
+
+    // 📦 Obtener en una sola consulta los talleres de varios reportes
+    @Query("SELECT * FROM report_workshops WHERE report_id = ANY(:reportIds) ORDER BY report_id, id")
+    Flux<ReportWorkshop> findByReportIdIn(Integer[] reportIds);
+
+    // 🔗 Reportes que referencian alguno de los talleres del cache
+    @Query("SELECT DISTINCT report_id FROM report_workshops WHERE workshop_id = ANY(:workshopIds)")
+    Flux<Integer> findReportIdsByWorkshopIdIn(Integer[] workshopIds);
+
+    // ❌ Eliminar todos los talleres de un reporte
     Mono<Void> deleteByReportId(Integer reportId);
+
+    // ❌ Eliminar solo los talleres quitados del reporte al editarlo
+    @Modifying
+    @Query("DELETE FROM report_workshops WHERE report_id = :reportId AND id = ANY(:ids)")
+    Mono<Long> deleteByReportIdAndIdIn(Integer reportId, Integer[] ids);
 }
@@ -0,0 +1,16 @@
+package pe.edu.vallegrande.report_workshop_service.repository;
+
+import pe.edu.vallegrande.report_workshop_service.model.ReportWorkshop;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReportWorkshopRepositoryCustom {
+
+    // ✏️ Actualiza varios talleres existentes con un único UPDATE enviado como lote (Statement.add)
+    Mono<Long> updateAll(List<ReportWorkshop> workshops);
+
+    // 💾 Inserta varios talleres con INSERT multi-fila ... RETURNING *, en el mismo orden recibido
+    Flux<ReportWorkshop> insertAll(List<ReportWorkshop> workshops);
+}
@@ -0,0 +1,115 @@
+package pe.edu.vallegrande.report_workshop_service.repository;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import pe.edu.vallegrande.report_workshop_service.model.ReportWorkshop;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 🔹 Escrituras por lote sobre report_workshops.
+ * Se usa la conexión del DatabaseClient, por lo que participa de la transacción reactiva en curso.
+ * Los INSERT multi-fila se parten en bloques de report-workshops.bulk.chunk-size filas
+ * (8 parámetros por fila, lejos del límite de 65535 de PostgreSQL).
+ */
+public class ReportWorkshopRepositoryCustomImpl implements ReportWorkshopRepositoryCustom {
+
+    private static final String UPDATE_SQL = "UPDATE report_workshops SET workshop_id = $1, workshop_name = $2, "
+            + "workshop_date_start = $3, workshop_date_end = $4, description = $5, image_urls = $6 "
+            + "WHERE id = $7 AND report_id = $8";
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+    private final int chunkSize;
+
+    public ReportWorkshopRepositoryCustomImpl(DatabaseClient databaseClient, R2dbcConverter converter,
+                                              @Value("${report-workshops.bulk.chunk-size:500}") int chunkSize) {
+        this.databaseClient = databaseClient;
+        this.converter = converter;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public Mono<Long> updateAll(List<ReportWorkshop> workshops) {
+        if (workshops.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return databaseClient.inConnection(connection -> {
+            Statement statement = connection.createStatement(UPDATE_SQL);
+            for (int i = 0; i < workshops.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                ReportWorkshop rw = workshops.get(i);
+                bind(statement, 0, rw.getWorkshopId(), Integer.class);
+                bind(statement, 1, rw.getWorkshopName(), String.class);
+                bind(statement, 2, rw.getWorkshopDateStart(), LocalDate.class);
+                bind(statement, 3, rw.getWorkshopDateEnd(), LocalDate.class);
+                bind(statement, 4, rw.getDescription(), String.class);
+                bind(statement, 5, rw.getImageUrl(), String[].class);
+                bind(statement, 6, rw.getId(), Integer.class);
+                bind(statement, 7, rw.getReportId(), Integer.class);
+            }
+            return Flux.from(statement.execute())
+                    .flatMap(Result::getRowsUpdated)
+                    .reduce(0L, Long::sum);
+        });
+    }
+
+    @Override
+    public Flux<ReportWorkshop> insertAll(List<ReportWorkshop> workshops) {
+        return Flux.fromIterable(workshops)
+                .buffer(chunkSize)
+                .concatMap(this::insertChunk);
+    }
+
+    private Flux<ReportWorkshop> insertChunk(List<ReportWorkshop> chunk) {
+        StringBuilder sql = new StringBuilder("INSERT INTO report_workshops (report_id, workshop_id, workshop_name, "
+                + "workshop_date_start, workshop_date_end, description, image_urls) VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:reportId").append(i)
+                    .append(", :workshopId").append(i)
+                    .append(", :workshopName").append(i)
+                    .append(", :dateStart").append(i)
+                    .append(", :dateEnd").append(i)
+                    .append(", :description").append(i)
+                    .append(", :imageUrls").append(i)
+                    .append(")");
+        }
+        sql.append(" RETURNING *");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < chunk.size(); i++) {
+            ReportWorkshop rw = chunk.get(i);
+            spec = bind(spec, "reportId" + i, rw.getReportId(), Integer.class);
+            spec = bind(spec, "workshopId" + i, rw.getWorkshopId(), Integer.class);
+            spec = bind(spec, "workshopName" + i, rw.getWorkshopName(), String.class);
+            spec = bind(spec, "dateStart" + i, rw.getWorkshopDateStart(), LocalDate.class);
+            spec = bind(spec, "dateEnd" + i, rw.getWorkshopDateEnd(), LocalDate.class);
+            spec = bind(spec, "description" + i, rw.getDescription(), String.class);
+            spec = bind(spec, "imageUrls" + i, rw.getImageUrl(), String[].class);
+        }
+        return spec.map((row, metadata) -> converter.read(ReportWorkshop.class, row, metadata)).all();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+
+    private static void bind(Statement statement, int index, Object value, Class<?> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+}
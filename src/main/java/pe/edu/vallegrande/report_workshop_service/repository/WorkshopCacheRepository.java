@@ -1,14 +1,18 @@
 package pe.edu.vallegrande.report_workshop_service.repository;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
 import reactor.core.publisher.Flux;
 
 @Repository
-public interface WorkshopCacheRepository extends ReactiveCrudRepository<WorkshopCache, Integer> {
+public interface WorkshopCacheRepository extends ReactiveCrudRepository<WorkshopCache, Integer>, WorkshopCacheRepositoryCustom {
 
     // 🔍 Listar todos los talleres activos
     Flux<WorkshopCache> findByStatus(String status);
-}
 
+    // 📦 Resolver varios talleres del cache en una sola consulta
+    @Query("SELECT * FROM workshop_cache WHERE id = ANY(:ids)")
+    Flux<WorkshopCache> findByIdIn(Integer[] ids);
+}
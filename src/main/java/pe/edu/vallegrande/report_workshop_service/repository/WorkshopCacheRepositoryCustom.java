@@ -0,0 +1,17 @@
+package pe.edu.vallegrande.report_workshop_service.repository;
+
+import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface WorkshopCacheRepositoryCustom {
+
+    // 💾 Inserta o actualiza varios talleres con un INSERT ... ON CONFLICT multi-fila
+    Mono<Long> upsertAll(List<WorkshopCache> workshops);
+
+    // 📄 Página ordenada por id (keyset: id > after); solo se agregan al WHERE los filtros presentes
+    Flux<WorkshopCache> findPage(String status, LocalDate dateFrom, LocalDate dateTo, Integer after, int limit);
+}
@@ -0,0 +1,88 @@
+package pe.edu.vallegrande.report_workshop_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 🔹 Escritura masiva y listado paginado del cache de talleres.
+ * Cada sentencia lleva hasta {@link #MAX_ROWS_PER_STATEMENT} filas para no superar el límite de parámetros de PostgreSQL.
+ */
+@RequiredArgsConstructor
+public class WorkshopCacheRepositoryCustomImpl implements WorkshopCacheRepositoryCustom {
+
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Mono<Long> upsertAll(List<WorkshopCache> workshops) {
+        return Flux.fromIterable(workshops)
+                .buffer(MAX_ROWS_PER_STATEMENT)
+                .concatMap(this::upsertChunk)
+                .reduce(0L, Long::sum);
+    }
+
+    @Override
+    public Flux<WorkshopCache> findPage(String status, LocalDate dateFrom, LocalDate dateTo, Integer after, int limit) {
+        Criteria criteria = Criteria.empty();
+        if (status != null) {
+            // status se guarda normalizado en mayúsculas, así la comparación usa idx_workshop_cache_status_id
+            criteria = criteria.and("status").is(status.toUpperCase());
+        }
+        if (dateFrom != null) {
+            criteria = criteria.and("date_start").greaterThanOrEquals(dateFrom);
+        }
+        if (dateTo != null) {
+            criteria = criteria.and("date_end").lessThanOrEquals(dateTo);
+        }
+        if (after != null) {
+            criteria = criteria.and("id").greaterThan(after);
+        }
+        return template.select(WorkshopCache.class)
+                .matching(Query.query(criteria).sort(Sort.by("id")).limit(limit))
+                .all();
+    }
+
+    private Mono<Long> upsertChunk(List<WorkshopCache> chunk) {
+        StringBuilder sql = new StringBuilder("INSERT INTO workshop_cache (id, name, date_start, date_end, status) VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:id").append(i)
+                    .append(", :name").append(i)
+                    .append(", :dateStart").append(i)
+                    .append(", :dateEnd").append(i)
+                    .append(", :status").append(i)
+                    .append(")");
+        }
+        sql.append(" ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, date_start = EXCLUDED.date_start, ")
+                .append("date_end = EXCLUDED.date_end, status = EXCLUDED.status");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < chunk.size(); i++) {
+            WorkshopCache workshop = chunk.get(i);
+            spec = bind(spec, "id" + i, workshop.getId(), Integer.class);
+            spec = bind(spec, "name" + i, workshop.getName(), String.class);
+            spec = bind(spec, "dateStart" + i, workshop.getDateStart(), LocalDate.class);
+            spec = bind(spec, "dateEnd" + i, workshop.getDateEnd(), LocalDate.class);
+            spec = bind(spec, "status" + i, workshop.getStatus(), String.class);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+}
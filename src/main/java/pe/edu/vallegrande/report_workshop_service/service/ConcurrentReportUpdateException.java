@@ -0,0 +1,12 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+/**
+ * 🔹 Se lanza cuando los talleres de un reporte cambiaron mientras se editaba (las filas afectadas no coinciden
+ * con las esperadas). La transacción se revierte y el controlador responde 409.
+ */
+public class ConcurrentReportUpdateException extends RuntimeException {
+
+    public ConcurrentReportUpdateException(Integer reportId) {
+        super("Los talleres del reporte " + reportId + " cambiaron durante la edición, vuelva a intentarlo");
+    }
+}
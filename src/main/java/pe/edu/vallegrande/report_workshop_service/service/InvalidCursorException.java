@@ -0,0 +1,12 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+/**
+ * 🔹 Se lanza cuando el cursor de paginación del listado no se puede decodificar.
+ * El controlador la traduce a 400.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Cursor inválido: " + cursor);
+    }
+}
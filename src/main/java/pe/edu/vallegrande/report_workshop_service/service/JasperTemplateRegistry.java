@@ -0,0 +1,113 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JREmptyDataSource;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🔹 Registro de plantillas Jasper compiladas.
+ * Carga y valida cada archivo .jasper una sola vez al iniciar (falla si alguno está corrupto)
+ * y entrega la misma instancia de {@link JasperReport} a todos los llenados concurrentes.
+ */
+@Slf4j
+@Component
+public class JasperTemplateRegistry {
+
+    private static final String EXTENSION = ".jasper";
+
+    private final ResourcePatternResolver resourceResolver;
+    private final String location;
+    private final Map<String, JasperReport> templates = new ConcurrentHashMap<>();
+
+    public JasperTemplateRegistry(
+            ResourcePatternResolver resourceResolver,
+            @Value("${jasper.templates.location:classpath*:*.jasper}") String location
+    ) {
+        this.resourceResolver = resourceResolver;
+        this.location = location;
+    }
+
+    /**
+     * 🔸 Carga y precalienta todas las plantillas al arrancar el servicio.
+     */
+    @PostConstruct
+    public void loadAll() {
+        Map<String, Resource> resources = scan();
+        if (resources.isEmpty()) {
+            throw new IllegalStateException("No se encontraron plantillas Jasper en " + location);
+        }
+        resources.forEach((name, resource) -> templates.put(name, load(name, resource)));
+        log.info("📄 Plantillas Jasper cargadas: {}", templates.keySet());
+    }
+
+    /**
+     * 🔸 Devuelve la plantilla compilada por nombre (sin extensión), p. ej. "reportPDF".
+     */
+    public JasperReport get(String name) {
+        JasperReport report = templates.get(name);
+        if (report == null) {
+            throw new NoSuchElementException("Plantilla Jasper no registrada: " + name);
+        }
+        return report;
+    }
+
+    /**
+     * ♻️ Vuelve a cargar una plantilla desde su ubicación.
+     * Si la nueva versión no es válida se conserva la anterior.
+     */
+    public JasperReport reload(String name) {
+        Resource resource = scan().get(name);
+        if (resource == null) {
+            throw new NoSuchElementException("Plantilla Jasper no encontrada: " + name);
+        }
+        JasperReport report = load(name, resource);
+        templates.put(name, report);
+        log.info("♻️ Plantilla Jasper recargada: {}", name);
+        return report;
+    }
+
+    private Map<String, Resource> scan() {
+        try {
+            Map<String, Resource> resources = new HashMap<>();
+            for (Resource resource : resourceResolver.getResources(location)) {
+                String fileName = resource.getFilename();
+                if (fileName != null && fileName.endsWith(EXTENSION)) {
+                    resources.put(fileName.substring(0, fileName.length() - EXTENSION.length()), resource);
+                }
+            }
+            return resources;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudieron listar las plantillas Jasper en " + location, e);
+        }
+    }
+
+    private JasperReport load(String name, Resource resource) {
+        try (InputStream inputStream = resource.getInputStream()) {
+            Object loaded = JRLoader.loadObject(inputStream);
+            if (!(loaded instanceof JasperReport report)) {
+                throw new IllegalStateException("El archivo no contiene un JasperReport compilado: " + resource);
+            }
+            // 🔥 Llenado en vacío: valida las expresiones compiladas y precalienta las clases del motor
+            JasperFillManager.fillReport(report, new HashMap<>(), new JREmptyDataSource(0));
+            return report;
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Plantilla Jasper inválida: " + name, e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * 🔹 Caché local de PDFs generados, delante de Supabase Storage.
+ * Índice en memoria (Caffeine) sobre un directorio en disco con tamaño máximo y expulsión LRU.
+ * La clave es el nombre guardado del PDF (reporte + rango de fechas + versión): cuando otro nodo edita el reporte
+ * la versión cambia y las entradas anteriores dejan de pedirse, hasta que la expulsión LRU las borra.
+ * Una respuesta HTTP fija ({@link #pin}) el archivo que está enviando: si se expulsa o invalida en ese lapso,
+ * el archivo se borra recién cuando la última respuesta que lo usa lo libera.
+ */
+@Slf4j
+@Component
+public class PdfArtifactCache {
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path directory;
+    private final Cache<String, Path> index;
+    // Respuestas que envían cada archivo en este momento, y archivos expulsados que esperan a que se liberen
+    private final Map<Path, Integer> pins = new ConcurrentHashMap<>();
+    private final Set<Path> deferredDeletes = ConcurrentHashMap.newKeySet();
+
+    public PdfArtifactCache(
+            @Value("${pdf.cache.directory:${java.io.tmpdir}/report-workshop-pdf}") String directory,
+            @Value("${pdf.cache.max-size-mb:512}") long maxSizeMb
+    ) {
+        this.directory = Path.of(directory);
+        this.index = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024)
+                .weigher((String fileName, Path file) -> kilobytes(file))
+                .executor(Runnable::run)
+                .removalListener((String fileName, Path file, RemovalCause cause) -> {
+                    // Cada versión guardada es un archivo propio: también al reemplazar se libera el anterior
+                    if (file != null) release(file);
+                })
+                .build();
+    }
+
+    /**
+     * 🔸 Crea el directorio y reconstruye el índice con los archivos que sobrevivieron a un reinicio.
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(Files::isRegularFile).toList();
+            }
+            files.stream()
+                    .filter(file -> file.getFileName().toString().endsWith(PART_SUFFIX))
+                    .forEach(this::deleteQuietly);
+            files.stream()
+                    .filter(file -> !file.getFileName().toString().endsWith(PART_SUFFIX))
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .forEach(file -> index.put(fileNameOf(file), file));
+            log.info("📁 Caché local de PDFs en {} ({} archivos)", directory, index.estimatedSize());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo preparar la caché local de PDFs en " + directory, e);
+        }
+    }
+
+    /**
+     * 🔸 Devuelve el archivo en disco si el PDF está en la caché local.
+     */
+    public Optional<Path> get(String fileName) {
+        Path file = index.getIfPresent(fileName);
+        if (file == null) {
+            return Optional.empty();
+        }
+        if (!Files.isReadable(file)) {
+            index.invalidate(fileName);
+            return Optional.empty();
+        }
+        return Optional.of(file);
+    }
+
+    /**
+     * 🔸 Escribe el contenido en disco y lo registra en el índice al terminar.
+     * Cada versión usa un archivo propio, por lo que reemplazar una entrada nunca pisa a un lector en curso.
+     */
+    public Mono<Path> store(String fileName, Flux<DataBuffer> content) {
+        Path file = directory.resolve(fileName + "." + UUID.randomUUID());
+        Path partial = directory.resolve(file.getFileName() + PART_SUFFIX);
+
+        return DataBufferUtils.write(content, partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)
+                .then(Mono.fromCallable(() -> Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .doOnSuccess(stored -> index.put(fileName, stored))
+                .doOnError(e -> deleteQuietly(partial))
+                .doOnCancel(() -> deleteQuietly(partial));
+    }
+
+    /**
+     * ❌ Borra ya de este nodo todas las variantes (rangos de fechas y versiones) del PDF de un reporte.
+     */
+    public void invalidateReport(Integer reportId) {
+        index.asMap().keySet().removeIf(fileName -> ReportWorkshopService.isReportPdf(fileName, reportId));
+    }
+
+    /**
+     * 🔒 Fija el archivo hasta llamar a {@link Pin#release()}: no se borra aunque se expulse o invalide.
+     * Se fija antes de leer su tamaño para cubrir todo el envío.
+     */
+    public Pin pin(Path file) {
+        pins.merge(file, 1, Integer::sum);
+        return new Pin(file);
+    }
+
+    /**
+     * 🔸 Archivo fijado por una respuesta; liberar más de una vez no tiene efecto.
+     */
+    public final class Pin {
+
+        private final Path file;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Pin(Path file) {
+            this.file = file;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                unpin(file);
+            }
+        }
+    }
+
+    private void unpin(Path file) {
+        pins.computeIfPresent(file, (f, count) -> {
+            if (count > 1) {
+                return count - 1;
+            }
+            // ❌ Expulsado mientras se enviaba: se borra ahora
+            if (deferredDeletes.remove(f)) {
+                deleteQuietly(f);
+            }
+            return null;
+        });
+    }
+
+    private void release(Path file) {
+        pins.compute(file, (f, count) -> {
+            if (count == null) {
+                deleteQuietly(f);
+            } else {
+                deferredDeletes.add(f);
+            }
+            return count;
+        });
+    }
+
+    private static String fileNameOf(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+
+    private static int kilobytes(Path file) {
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(1, Files.size(file) / 1024));
+        } catch (IOException e) {
+            return 1;
+        }
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("⚠️ No se pudo eliminar {} de la caché local de PDFs", file, e);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * 🔹 Imágenes de talleres listas para el PDF.
+ * Antes del llenado se descargan en paralelo (con concurrencia acotada), se reducen al tamaño de impresión
+ * del elemento de imagen de la plantilla y se guardan como JPEG en disco. Jasper recibe URLs file: locales.
+ * El índice en memoria (Caffeine) limita el tamaño total en disco, expulsa por LRU y comparte las descargas
+ * en curso: dos renders que piden la misma imagen esperan la misma descarga.
+ * Un render fija ({@link #pin}) sus imágenes mientras llena la plantilla: si alguna se expulsa en ese lapso,
+ * el archivo se borra recién cuando el último render que la usa la libera.
+ */
+@Slf4j
+@Component
+public class PdfImageCache {
+
+    // Tamaño del elemento de imagen en reportPDF.jasper (puntos, 72 por pulgada)
+    private static final int IMAGE_WIDTH_PT = 380;
+    private static final int IMAGE_HEIGHT_PT = 260;
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final String EXTENSION = ".jpg";
+    private static final String PART_SUFFIX = ".part";
+
+    private final WebClient webClient;
+    private final Path directory;
+    private final int concurrency;
+    private final int maxWidthPx;
+    private final int maxHeightPx;
+    private final AsyncCache<String, Path> index;
+    // Renders que usan cada clave en este momento, y claves expulsadas cuyo archivo espera a que se liberen
+    private final Map<String, Integer> pins = new ConcurrentHashMap<>();
+    private final Set<String> deferredDeletes = ConcurrentHashMap.newKeySet();
+
+    public PdfImageCache(
+            @Qualifier("imageWebClient") WebClient webClient,
+            @Value("${pdf.images.directory:${java.io.tmpdir}/report-workshop-images}") String directory,
+            @Value("${pdf.images.max-size-mb:256}") long maxSizeMb,
+            @Value("${pdf.images.concurrency:8}") int concurrency,
+            @Value("${pdf.images.dpi:150}") int dpi
+    ) {
+        this.webClient = webClient;
+        this.directory = Path.of(directory);
+        this.concurrency = concurrency;
+        this.maxWidthPx = IMAGE_WIDTH_PT * dpi / 72;
+        this.maxHeightPx = IMAGE_HEIGHT_PT * dpi / 72;
+        this.index = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024)
+                .weigher((String key, Path file) -> kilobytes(file))
+                .executor(Runnable::run)
+                .removalListener((String key, Path file, RemovalCause cause) -> {
+                    // Al reemplazar, el valor nuevo apunta al mismo archivo
+                    if (file != null && cause != RemovalCause.REPLACED) release(key, file);
+                })
+                .buildAsync();
+    }
+
+    /**
+     * 🔸 Crea el directorio y registra las imágenes que ya estaban procesadas de una ejecución anterior.
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(Files::isRegularFile).toList();
+            }
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(EXTENSION)) {
+                    index.synchronous().put(name.substring(0, name.length() - EXTENSION.length()), file);
+                } else {
+                    deleteQuietly(file);
+                }
+            }
+            log.info("🖼️ Caché de imágenes para PDF en {} ({} imágenes, máx. {}x{} px)",
+                    directory, index.synchronous().estimatedSize(), maxWidthPx, maxHeightPx);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo preparar la caché de imágenes en " + directory, e);
+        }
+    }
+
+    /**
+     * 🔸 Devuelve, para cada URL remota, la URL file: de su versión reducida en disco.
+     * Si una imagen no se puede descargar o procesar se deja la URL original.
+     */
+    public Mono<Map<String, String>> localize(Collection<String> urls) {
+        List<String> distinct = distinct(urls);
+        if (distinct.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return Flux.fromIterable(distinct)
+                .flatMap(url -> Mono.fromFuture(() -> index.get(key(url), (key, executor) -> load(url, key)), true)
+                        .map(file -> Map.entry(url, file.toUri().toString()))
+                        .onErrorResume(e -> {
+                            log.warn("⚠️ No se pudo preparar la imagen {}, se usará la URL original: {}", url, e.getMessage());
+                            return Mono.just(Map.entry(url, url));
+                        }), concurrency)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    /**
+     * 🔒 Fija las imágenes de estas URLs hasta llamar a {@link Pin#release()}: sus archivos no se borran
+     * aunque Caffeine las expulse. Se fija antes de {@link #localize} para cubrir también la descarga.
+     */
+    public Pin pin(Collection<String> urls) {
+        List<String> keys = distinct(urls).stream().map(this::key).toList();
+        keys.forEach(key -> pins.merge(key, 1, Integer::sum));
+        return new Pin(keys);
+    }
+
+    /**
+     * 🔸 Imágenes fijadas por un render; liberar más de una vez no tiene efecto.
+     */
+    public final class Pin {
+
+        private final List<String> keys;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Pin(List<String> keys) {
+            this.keys = keys;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                keys.forEach(PdfImageCache.this::unpin);
+            }
+        }
+    }
+
+    private void unpin(String key) {
+        pins.computeIfPresent(key, (k, count) -> {
+            if (count > 1) {
+                return count - 1;
+            }
+            // ❌ Expulsada mientras estaba en uso: se borra ahora, salvo que ya se haya vuelto a cargar
+            if (deferredDeletes.remove(k) && !index.asMap().containsKey(k)) {
+                deleteQuietly(directory.resolve(k + EXTENSION));
+            }
+            return null;
+        });
+    }
+
+    private void release(String key, Path file) {
+        pins.compute(key, (k, count) -> {
+            if (count == null) {
+                deleteQuietly(file);
+            } else {
+                deferredDeletes.add(k);
+            }
+            return count;
+        });
+    }
+
+    private static List<String> distinct(Collection<String> urls) {
+        return urls.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private CompletableFuture<Path> load(String url, String key) {
+        return webClient.get()
+                .uri(URI.create(url))
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .publishOn(Schedulers.boundedElastic())
+                .flatMap(bytes -> Mono.fromCallable(() -> downscaleAndStore(bytes, key)))
+                .toFuture();
+    }
+
+    /**
+     * 🔸 Reduce la imagen para que entre en el recuadro de impresión (sin agrandarla) y la guarda como JPEG.
+     * Las transparencias se aplanan sobre fondo blanco.
+     */
+    private Path downscaleAndStore(byte[] bytes, String key) throws IOException {
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(bytes));
+        if (source == null) {
+            throw new IOException("Formato de imagen no soportado");
+        }
+        double scale = Math.min(1.0, Math.min((double) maxWidthPx / source.getWidth(), (double) maxHeightPx / source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Path file = directory.resolve(key + EXTENSION);
+        Path partial = directory.resolve(key + EXTENSION + "." + UUID.randomUUID() + PART_SUFFIX);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(partial.toFile())) {
+            ImageWriteParam params = writer.getDefaultWriteParam();
+            params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            params.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(target, null, null), params);
+        } catch (IOException e) {
+            deleteQuietly(partial);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+        return Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 🔸 Clave de la imagen: hash de la URL y del tamaño destino (si cambia el DPI, cambia la clave).
+     */
+    private String key(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest((url + "@" + maxWidthPx + "x" + maxHeightPx).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int kilobytes(Path file) {
+        try {
+            return (int) Math.max(1, Files.size(file) / 1024);
+        } catch (IOException e) {
+            return 1;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("⚠️ No se pudo eliminar la imagen en caché {}", file, e);
+        }
+    }
+}
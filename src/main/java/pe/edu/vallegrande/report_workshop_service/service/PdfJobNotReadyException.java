@@ -0,0 +1,14 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import java.util.UUID;
+
+/**
+ * 🔹 Se lanza al pedir la descarga de un trabajo de PDF que todavía no terminó (o que falló).
+ * El controlador la traduce a 409.
+ */
+public class PdfJobNotReadyException extends RuntimeException {
+
+    public PdfJobNotReadyException(UUID jobId, String status) {
+        super("El trabajo " + jobId + " está en estado " + status);
+    }
+}
@@ -0,0 +1,189 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.report_workshop_service.dto.PdfArtifact;
+import pe.edu.vallegrande.report_workshop_service.dto.PdfJobDto;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import pe.edu.vallegrande.report_workshop_service.model.PdfJob;
+import pe.edu.vallegrande.report_workshop_service.repository.PdfJobRepository;
+import pe.edu.vallegrande.report_workshop_service.webclient.ReportBatchLoader;
+import pe.edu.vallegrande.report_workshop_service.webclient.UpstreamOverloadedException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * 🔹 Exportación de PDFs en segundo plano.
+ * Los trabajos se guardan en pdf_jobs (uno activo por reporte + rango de fechas) y los procesa un grupo fijo
+ * de workers que toman la cola con FOR UPDATE SKIP LOCKED. Cada toma tiene un lease: si el nodo se cae o se
+ * reinicia, el trabajo vuelve a estar disponible cuando vence y otro worker lo retoma.
+ * Cada trabajo guarda su PDF con un nombre propio (job_{id}.pdf, en la caché local y en Supabase) y la descarga
+ * entrega esa copia: el trabajo refleja el reporte al momento de encolarlo y nunca pisa el PDF vigente del reporte.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PdfJobService {
+
+    private final PdfJobRepository jobRepository;
+    private final ReportWorkshopService reportService;
+    private final ReportBatchLoader reportLoader;
+    private final ObjectMapper objectMapper;
+
+    @Value("${pdf.jobs.workers:2}")
+    private int workers = 2;
+
+    @Value("${pdf.jobs.poll-interval-ms:2000}")
+    private long pollIntervalMs = 2000;
+
+    @Value("${pdf.jobs.lease-seconds:600}")
+    private int leaseSeconds = 600;
+
+    @Value("${pdf.jobs.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    // Espera antes de reintentar un trabajo fallido; se duplica en cada intento
+    @Value("${pdf.jobs.retry-backoff-seconds:30}")
+    private int retryBackoffSeconds = 30;
+
+    private volatile Disposable workerPool;
+
+    /**
+     * 🔸 Encola la exportación, o devuelve el trabajo activo que ya existe para los mismos parámetros.
+     * Los datos del reporte se leen aquí, con el JWT de quien lo pide, y se guardan con el trabajo.
+     */
+    public Mono<PdfJobDto> submit(Integer reportId, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
+        String fileName = ReportWorkshopService.pdfFileName(reportId, workshopDateStart, workshopDateEnd);
+        return reportLoader.load(reportId)
+                .switchIfEmpty(Mono.error(new NoSuchElementException("Reporte no encontrado con ID: " + reportId)))
+                .map(this::toJson)
+                .flatMap(snapshot -> jobRepository
+                        .insertIfNoneActive(UUID.randomUUID(), reportId, workshopDateStart, workshopDateEnd, fileName, snapshot)
+                        .doOnNext(job -> log.info("📝 Trabajo de PDF {} encolado para {}", job.getId(), fileName))
+                        .switchIfEmpty(jobRepository.findActiveByFileName(fileName))
+                        // 🔁 El trabajo activo pudo terminar entre el INSERT y la consulta: se vuelve a intentar
+                        .repeatWhenEmpty(2, repeats -> repeats))
+                .map(this::toDto);
+    }
+
+    public Mono<PdfJobDto> findById(UUID jobId) {
+        return jobRepository.findById(jobId).map(this::toDto);
+    }
+
+    /**
+     * 🔸 PDF de un trabajo terminado: el archivo que generó el trabajo, desde la caché local o su copia en Supabase.
+     * Nunca se vuelve a generar.
+     */
+    public Mono<PdfArtifact> download(UUID jobId) {
+        return jobRepository.findById(jobId)
+                .flatMap(job -> {
+                    if (!PdfJob.DONE.equals(job.getStatus())) {
+                        return Mono.error(new PdfJobNotReadyException(jobId, job.getStatus()));
+                    }
+                    return Mono.just(reportService.jobPdf(job.getFileName(), jobObjectName(job.getId())));
+                });
+    }
+
+    /**
+     * 🔸 Nombre con el que se guarda el PDF de un trabajo; distinto del nombre del PDF vigente del reporte.
+     */
+    static String jobObjectName(UUID jobId) {
+        return "job_" + jobId + ".pdf";
+    }
+
+    /**
+     * 🔸 Arranca los workers. Los trabajos que quedaron en curso antes de un reinicio se retoman al vencer su lease.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        workerPool = Flux.range(0, workers)
+                .flatMap(worker -> Mono.defer(this::pollOnce).repeat(), workers)
+                .subscribe();
+        log.info("⚙️ {} workers de exportación de PDF iniciados", workers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (workerPool != null) {
+            workerPool.dispose();
+        }
+    }
+
+    /**
+     * 🔸 Procesa un trabajo de la cola; si no hay ninguno (o la base de datos falla) espera antes del siguiente intento.
+     */
+    Mono<Void> pollOnce() {
+        return jobRepository.claimNext(leaseSeconds)
+                .flatMap(job -> process(job).thenReturn(true))
+                .defaultIfEmpty(false)
+                .onErrorResume(e -> {
+                    log.warn("⚠️ No se pudo leer la cola de trabajos de PDF", e);
+                    return Mono.just(false);
+                })
+                .flatMap(processed -> processed ? Mono.<Void>empty() : Mono.delay(Duration.ofMillis(pollIntervalMs)).then());
+    }
+
+    private Mono<Void> process(PdfJob job) {
+        if (job.getAttempts() > maxAttempts) {
+            return jobRepository.finish(job.getId(), PdfJob.FAILED, "Se agotaron los intentos").then();
+        }
+        return Mono.fromCallable(() -> fromJson(job.getReportSnapshot()))
+                .flatMap(report -> reportService.renderJobPdf(jobObjectName(job.getId()), job.getReportId(),
+                        job.getWorkshopDateStart(), job.getWorkshopDateEnd(), report))
+                // ⏱️ El intento se corta antes de que venza el lease, para que nunca lo retomen dos workers a la vez
+                .timeout(Duration.ofSeconds(leaseSeconds * 9L / 10))
+                .then(Mono.defer(() -> jobRepository.finish(job.getId(), PdfJob.DONE, null)))
+                .doOnSuccess(v -> log.info("✅ Trabajo de PDF {} terminado ({})", job.getId(), job.getFileName()))
+                .onErrorResume(e -> {
+                    // ⏳ Sin capacidad de render o core saturado: se reintenta luego sin gastar el intento
+                    if (e instanceof PdfRenderRejectedException || e instanceof UpstreamOverloadedException) {
+                        return jobRepository.release(job.getId())
+                                .then(Mono.delay(Duration.ofMillis(pollIntervalMs)));
+                    }
+                    log.error("❌ Trabajo de PDF {} falló (intento {}/{})", job.getId(), job.getAttempts(), maxAttempts, e);
+                    if (job.getAttempts() >= maxAttempts) {
+                        return jobRepository.finish(job.getId(), PdfJob.FAILED, e.getMessage());
+                    }
+                    // ⏳ Vuelve a la cola con espera exponencial, para que un fallo persistente no ocupe a los workers
+                    return jobRepository.retryLater(job.getId(), e.getMessage(), retryDelaySeconds(job.getAttempts()));
+                })
+                .then();
+    }
+
+    long retryDelaySeconds(int attempts) {
+        return (long) retryBackoffSeconds << Math.min(Math.max(attempts - 1, 0), 16);
+    }
+
+    private String toJson(ReportDto report) {
+        try {
+            return objectMapper.writeValueAsString(report);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo guardar la copia del reporte " + report.getId(), e);
+        }
+    }
+
+    private ReportDto fromJson(String snapshot) throws JsonProcessingException {
+        return objectMapper.readValue(snapshot, ReportDto.class);
+    }
+
+    private PdfJobDto toDto(PdfJob job) {
+        String downloadUrl = PdfJob.DONE.equals(job.getStatus())
+                ? "/api/reports-workshop/pdf-jobs/" + job.getId() + "/download"
+                : null;
+        return new PdfJobDto(job.getId(), job.getReportId(), job.getWorkshopDateStart(), job.getWorkshopDateEnd(),
+                job.getStatus(), job.getAttempts(), job.getError(), job.getCreatedAt(), job.getUpdatedAt(), downloadUrl);
+    }
+}
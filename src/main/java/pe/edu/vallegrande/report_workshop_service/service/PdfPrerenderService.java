@@ -0,0 +1,137 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * 🔹 Pre-render en segundo plano del PDF sin filtros de cada reporte que cambia.
+ * Solo se pre-renderiza con datos recién recibidos del core (alta y edición en este nodo). Los avisos de Kafka
+ * no traen datos ni cambian el PDF (se genera con las filas de report_workshops, no con workshop_cache), así que
+ * la copia guardada sigue sirviendo; solo posponen un pre-render que ya estuviera pendiente.
+ * Los avisos ({@link ReportChangedEvent}) se agrupan por reporte durante {@code pdf.prerender.debounce-ms},
+ * y luego se encolan en un ejecutor de un solo hilo, de baja prioridad y con cola acotada.
+ * Si el pool de renders no tiene un hilo libre, el pre-render se reprograma en lugar de esperar, así nunca compite
+ * con los pedidos de usuarios; si la cola está llena el aviso se descarta y el PDF se generará a pedido, como antes.
+ */
+@Slf4j
+@Service
+public class PdfPrerenderService implements DisposableBean {
+
+    private final ReportWorkshopService reportService;
+    private final PdfRenderScheduler renderScheduler;
+    private final boolean enabled;
+    private final Duration debounce;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+
+    // Temporizador pendiente por reporte; cada aviso nuevo reinicia el del reporte
+    private final Map<Integer, Disposable> debounced = new ConcurrentHashMap<>();
+    // Reportes ya en la cola del ejecutor (al ejecutarse toman los datos más recientes)
+    private final Set<Integer> queued = ConcurrentHashMap.newKeySet();
+    // Datos del core del último alta/edición de cada reporte con pre-render pendiente
+    private final Map<Integer, ReportDto> pending = new ConcurrentHashMap<>();
+
+    public PdfPrerenderService(
+            ReportWorkshopService reportService,
+            PdfRenderScheduler renderScheduler,
+            @Value("${pdf.prerender.enabled:true}") boolean enabled,
+            @Value("${pdf.prerender.debounce-ms:5000}") long debounceMs,
+            @Value("${pdf.prerender.queue-capacity:100}") int queueCapacity,
+            @Value("${pdf.prerender.timeout-seconds:300}") long timeoutSeconds
+    ) {
+        this.reportService = reportService;
+        this.renderScheduler = renderScheduler;
+        this.enabled = enabled;
+        this.debounce = Duration.ofMillis(debounceMs);
+        this.timeout = Duration.ofSeconds(timeoutSeconds);
+        this.executor = new ThreadPoolExecutor(
+                1, 1,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-prerender");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @EventListener
+    public void onReportChanged(ReportChangedEvent event) {
+        if (!enabled || event.reportId() == null) {
+            return;
+        }
+        if (event.report() != null) {
+            pending.put(event.reportId(), event.report());
+        } else if (!pending.containsKey(event.reportId())) {
+            // Aviso de Kafka sin datos frescos: la copia guardada del PDF sigue vigente
+            return;
+        }
+        schedule(event.reportId());
+    }
+
+    private void schedule(Integer reportId) {
+        debounced.compute(reportId, (id, previous) -> {
+            if (previous != null) {
+                previous.dispose();
+            }
+            return Mono.delay(debounce).subscribe(tick -> enqueue(id));
+        });
+    }
+
+    private void enqueue(Integer reportId) {
+        debounced.remove(reportId);
+        if (!queued.add(reportId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                queued.remove(reportId);
+                prerender(reportId);
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(reportId);
+            pending.remove(reportId);
+            log.warn("⚠️ Cola de pre-render llena, el PDF del reporte {} se generará a pedido", reportId);
+        }
+    }
+
+    /**
+     * 🔸 Corre en el hilo del ejecutor: puede esperar de forma bloqueante al render.
+     */
+    private void prerender(Integer reportId) {
+        if (!renderScheduler.hasIdleCapacity()) {
+            // ⏳ Hay pedidos de usuarios en curso: se vuelve a intentar más tarde sin ocupar el hilo
+            schedule(reportId);
+            return;
+        }
+        ReportDto report = pending.remove(reportId);
+        if (report == null) {
+            return;
+        }
+        try {
+            reportService.refreshPdf(report).block(timeout);
+            log.info("🖨️ PDF del reporte {} pre-renderizado", reportId);
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo pre-renderizar el PDF del reporte {}", reportId, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        debounced.values().forEach(Disposable::dispose);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,18 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import lombok.Getter;
+
+/**
+ * 🔹 Se lanza cuando la cola de renderizado de PDF está llena.
+ * El controlador la traduce a 503 con cabecera Retry-After.
+ */
+@Getter
+public class PdfRenderRejectedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public PdfRenderRejectedException(int retryAfterSeconds) {
+        super("La cola de generación de PDF está llena, intente nuevamente en " + retryAfterSeconds + " segundos");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
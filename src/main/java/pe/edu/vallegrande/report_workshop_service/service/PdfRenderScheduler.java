@@ -0,0 +1,190 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 🔹 Ejecutor dedicado para el llenado y exportación de PDFs con Jasper.
+ * Tiene paralelismo y cola acotados, de modo que los renders nunca corren en el event loop de Netty
+ * y una ráfaga de PDFs no puede dejar sin hilos a los endpoints JSON.
+ * Cuando la cola está llena las peticiones se rechazan con {@link PdfRenderRejectedException}.
+ * La exportación en streaming usa un segundo pool con los mismos límites: al terminar el llenado el hilo de render
+ * se libera, así que la cola de exportación se acota aparte y también rechaza cuando está llena.
+ */
+@Slf4j
+@Component
+public class PdfRenderScheduler implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor exportExecutor;
+    private final AtomicInteger activeRenders = new AtomicInteger();
+    // Exportaciones admitidas (en ejecución o en cola); se controla antes de suscribir al publicador
+    private final AtomicInteger admittedExports = new AtomicInteger();
+    private final int maxExports;
+    private final Timer renderTimer;
+    private final Timer exportTimer;
+    private final DistributionSummary pdfSize;
+    private final int retryAfterSeconds;
+
+    public PdfRenderScheduler(
+            MeterRegistry meterRegistry,
+            @Value("${pdf.render.parallelism:2}") int parallelism,
+            @Value("${pdf.render.queue-capacity:16}") int queueCapacity,
+            @Value("${pdf.render.retry-after-seconds:10}") int retryAfterSeconds
+    ) {
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(
+                parallelism, parallelism,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory("pdf-render-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.exportExecutor = new ThreadPoolExecutor(
+                parallelism, parallelism,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory("pdf-export-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxExports = parallelism + queueCapacity;
+
+        this.renderTimer = Timer.builder("pdf.render.duration")
+                .description("Tiempo de llenado y exportación de un PDF")
+                .register(meterRegistry);
+        this.exportTimer = Timer.builder("pdf.export.duration")
+                .description("Tiempo de exportación en streaming de un PDF")
+                .register(meterRegistry);
+        this.pdfSize = DistributionSummary.builder("pdf.size")
+                .description("Tamaño de los PDFs exportados")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pdf.render.queue.depth", executor, e -> e.getQueue().size())
+                .description("Renders de PDF en espera")
+                .register(meterRegistry);
+        Gauge.builder("pdf.render.active", activeRenders, AtomicInteger::get)
+                .description("Renders de PDF en ejecución")
+                .register(meterRegistry);
+        Gauge.builder("pdf.export.queue.depth", exportExecutor, e -> e.getQueue().size())
+                .description("Exportaciones de PDF en espera")
+                .register(meterRegistry);
+        Gauge.builder("pdf.export.active", exportExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Exportaciones de PDF en ejecución")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🔸 Ejecuta una tarea de render en el pool acotado.
+     * Si la cola está llena emite {@link PdfRenderRejectedException} sin esperar.
+     */
+    public <T> Mono<T> submit(Callable<T> task) {
+        return Mono.create(sink -> {
+            try {
+                Future<?> future = executor.submit(() -> {
+                    activeRenders.incrementAndGet();
+                    Timer.Sample sample = Timer.start();
+                    try {
+                        sink.success(task.call());
+                    } catch (Exception e) {
+                        sink.error(e);
+                    } finally {
+                        sample.stop(renderTimer);
+                        activeRenders.decrementAndGet();
+                    }
+                });
+                sink.onCancel(() -> future.cancel(false));
+            } catch (RejectedExecutionException e) {
+                log.warn("⚠️ Cola de PDF llena ({} en espera), se rechaza la petición", executor.getQueue().size());
+                sink.error(new PdfRenderRejectedException(retryAfterSeconds));
+            }
+        });
+    }
+
+    /**
+     * 🔸 Hay un hilo de render libre y nadie esperando: los trabajos de baja prioridad solo arrancan así.
+     */
+    public boolean hasIdleCapacity() {
+        return executor.getQueue().isEmpty() && activeRenders.get() < executor.getMaximumPoolSize();
+    }
+
+    /**
+     * 🔸 Publica en bloques de {@code chunkSize} lo que el exportador escribe en el OutputStream.
+     * La escritura se detiene mientras el consumidor no pida más datos, así que la memoria
+     * retenida por render queda acotada por el tamaño de bloque y no por el del documento.
+     * Si el pool de exportación y su cola están completos emite {@link PdfRenderRejectedException}.
+     */
+    public Flux<DataBuffer> stream(Consumer<OutputStream> exporter, int chunkSize) {
+        return Flux.defer(() -> {
+            if (admittedExports.incrementAndGet() > maxExports) {
+                admittedExports.decrementAndGet();
+                log.warn("⚠️ Cola de exportación de PDF llena ({} en espera), se rechaza la petición", exportExecutor.getQueue().size());
+                return Flux.error(new PdfRenderRejectedException(retryAfterSeconds));
+            }
+            Timer.Sample sample = Timer.start();
+            AtomicLong bytes = new AtomicLong();
+            return Flux.from(DataBufferUtils.outputStreamPublisher(
+                            outputStream -> exporter.accept(new SlicingOutputStream(outputStream, chunkSize)),
+                            DefaultDataBufferFactory.sharedInstance, exportExecutor, chunkSize))
+                    .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                    // Solo los PDFs exportados completos cuentan para el tamaño
+                    .doOnComplete(() -> pdfSize.record(bytes.get()))
+                    .doFinally(signal -> {
+                        admittedExports.decrementAndGet();
+                        sample.stop(exportTimer);
+                    });
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        exportExecutor.shutdownNow();
+    }
+
+    /**
+     * 🔸 Parte las escrituras grandes para que ningún bloque publicado supere {@code chunkSize}
+     * (BufferedOutputStream deja pasar sin dividir las escrituras mayores que su buffer).
+     */
+    private static final class SlicingOutputStream extends FilterOutputStream {
+
+        private final int sliceSize;
+
+        private SlicingOutputStream(OutputStream out, int sliceSize) {
+            super(out);
+            this.sliceSize = sliceSize;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            for (int written = 0; written < len; written += sliceSize) {
+                out.write(b, off + written, Math.min(sliceSize, len - written));
+            }
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
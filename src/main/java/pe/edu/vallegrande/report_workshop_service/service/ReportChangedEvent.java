@@ -0,0 +1,11 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+
+/**
+ * 🔹 Evento de aplicación: cambiaron los datos que se imprimen en el PDF de un reporte.
+ * {@code report} viene cuando quien publica ya tiene los datos del core (alta y edición); es null
+ * cuando el cambio llega por Kafka.
+ */
+public record ReportChangedEvent(Integer reportId, ReportDto report) {
+}
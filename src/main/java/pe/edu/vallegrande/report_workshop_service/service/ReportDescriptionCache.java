@@ -0,0 +1,138 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 🔹 Descripción HTML de los reportes para el PDF.
+ * Se descarga sin bloquear (WebClient con timeout y tamaño máximo) y se guarda ya preprocesada,
+ * por lo que los renders siguientes del mismo reporte reutilizan el contenido listo para Jasper.
+ * Pasada la TTL se revalida con If-None-Match / If-Modified-Since; si el servidor no responde
+ * se usa la última versión conocida. Los renders que piden a la vez una descripción sin copia vigente
+ * comparten una única descarga.
+ */
+@Slf4j
+@Component
+public class ReportDescriptionCache {
+
+    private static final Pattern BODY = Pattern.compile("(?is)<body[^>]*>(.*)</body>");
+    private static final Pattern SCRIPT_OR_STYLE = Pattern.compile("(?is)<(script|style)\\b[^>]*>.*?</\\1\\s*>");
+    private static final Pattern COMMENT = Pattern.compile("(?s)<!--.*?-->");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final WebClient webClient;
+    private final Cache<String, Entry> entries;
+    // Descargas en curso por URL: los pedidos concurrentes se suscriben a la misma
+    private final Map<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final Duration timeout;
+
+    public ReportDescriptionCache(
+            @Qualifier("contentWebClient") WebClient webClient,
+            @Value("${pdf.description.ttl-seconds:300}") long ttlSeconds,
+            @Value("${pdf.description.timeout-seconds:10}") long timeoutSeconds,
+            @Value("${pdf.description.max-entries:500}") long maxEntries
+    ) {
+        this.webClient = webClient;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.timeout = Duration.ofSeconds(timeoutSeconds);
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * 🔸 HTML preprocesado de la URL indicada; cadena vacía si no hay URL o nunca se pudo leer.
+     */
+    public Mono<String> get(String url) {
+        if (url == null || url.isBlank()) {
+            return Mono.just("");
+        }
+        return Mono.defer(() -> {
+            Entry cached = entries.getIfPresent(url);
+            if (cached != null && !cached.isStale(ttl)) {
+                return Mono.just(cached.html());
+            }
+            // 🔒 Single-flight: el primero descarga (o revalida) y el resto espera su resultado.
+            // Se quita al terminar, antes de entregar el valor, para que el pedido siguiente vea la entrada nueva
+            return inFlight.computeIfAbsent(url, u -> load(u, cached)
+                    .doOnTerminate(() -> inFlight.remove(u))
+                    .cache());
+        });
+    }
+
+    private Mono<String> load(String url, Entry cached) {
+        return fetch(url, cached)
+                .doOnNext(entry -> entries.put(url, entry))
+                .map(Entry::html)
+                .onErrorResume(e -> {
+                    if (cached != null) {
+                        log.warn("⚠️ No se pudo revalidar el HTML {}, se usará la versión anterior: {}", url, e.getMessage());
+                        return Mono.just(cached.html());
+                    }
+                    log.error("❌ No se pudo leer el HTML de la descripción {}: {}", url, e.getMessage());
+                    return Mono.just("");
+                });
+    }
+
+    private Mono<Entry> fetch(String url, Entry previous) {
+        return webClient.get()
+                .uri(URI.create(url))
+                .headers(headers -> {
+                    if (previous != null && previous.etag() != null) headers.setIfNoneMatch(previous.etag());
+                    if (previous != null && previous.lastModified() != null) headers.set(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified());
+                })
+                .exchangeToMono(response -> {
+                    if (previous != null && response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                        return response.releaseBody().thenReturn(previous.renewed());
+                    }
+                    if (response.statusCode().isError()) {
+                        return response.createError();
+                    }
+                    HttpHeaders headers = response.headers().asHttpHeaders();
+                    return response.bodyToMono(String.class)
+                            .defaultIfEmpty("")
+                            .map(body -> new Entry(sanitize(body), headers.getETag(),
+                                    headers.getFirst(HttpHeaders.LAST_MODIFIED), System.nanoTime()));
+                })
+                .timeout(timeout);
+    }
+
+    /**
+     * 🔸 Deja solo el contenido del body, sin scripts, estilos ni comentarios, y con espacios normalizados
+     * (el elemento HTML de Jasper solo entiende un subconjunto de etiquetas de texto).
+     */
+    static String sanitize(String html) {
+        Matcher body = BODY.matcher(html);
+        String content = body.find() ? body.group(1) : html;
+        content = SCRIPT_OR_STYLE.matcher(content).replaceAll("");
+        content = COMMENT.matcher(content).replaceAll("");
+        return WHITESPACE.matcher(content).replaceAll(" ").trim();
+    }
+
+    private record Entry(String html, String etag, String lastModified, long fetchedAtNanos) {
+
+        boolean isStale(Duration ttl) {
+            return System.nanoTime() - fetchedAtNanos > ttl.toNanos();
+        }
+
+        Entry renewed() {
+            return new Entry(html, etag, lastModified, System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.report_workshop_service.dto.PdfArtifact;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 🔹 Exportación masiva de PDFs de reportes en un único ZIP.
+ * Los PDFs se preparan en paralelo (hasta {@code reports.export.concurrency}) reutilizando la caché local
+ * y las copias de Supabase; las copias de Supabase se descargan primero a la caché local, así cada PDF
+ * está completo en disco antes de entrar al ZIP y un corte de red nunca deja una entrada a medias.
+ * El ZIP se escribe en streaming, por lo que nunca se arma completo en memoria.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportExportService {
+
+    private static final String PDF_FOLDER = "pdf";
+    private static final int RENDER_RETRIES = 3;
+
+    private final ReportWorkshopService reportService;
+    private final SupabaseStorageService storageService;
+    private final PdfArtifactCache artifactCache;
+
+    @Value("${reports.export.concurrency:4}")
+    private int concurrency = 4;
+
+    @Value("${pdf.render.chunk-size:65536}")
+    private int chunkSize = 65536;
+
+    /**
+     * 🔸 ZIP con el PDF de cada reporte que cumple los filtros (los mismos que el listado).
+     * El contexto de la petición (JWT) se propaga a la preparación de los PDFs.
+     */
+    public Flux<DataBuffer> exportZip(String status, String trimester, Integer year) {
+        return Flux.deferContextual(ctx -> {
+            Flux<ZipSource> sources = reportService.findFilteredReports(status, trimester, year, null, null)
+                    .flatMap(dto -> prepare(dto.getReport()), concurrency)
+                    .contextWrite(ctx);
+            return DataBufferUtils.outputStreamPublisher(out -> writeZip(sources, out),
+                    DefaultDataBufferFactory.sharedInstance, Schedulers.boundedElastic()::schedule, chunkSize);
+        });
+    }
+
+    /**
+     * 🔸 Deja el PDF de un reporte listo para copiarse al ZIP. Si la cola de render está llena se reintenta
+     * con espera; si falla, el reporte se omite para no perder el resto del archivo.
+     */
+    private Mono<ZipSource> prepare(ReportDto report) {
+        return Mono.defer(() -> reportService.generatePdf(report.getId(), null, null, Mono.just(report)))
+                .flatMap(this::toSource)
+                .retryWhen(Retry.backoff(RENDER_RETRIES, Duration.ofSeconds(1))
+                        .filter(e -> e instanceof PdfRenderRejectedException))
+                .onErrorResume(e -> {
+                    log.error("❌ No se pudo incluir el PDF del reporte {} en el ZIP", report.getId(), e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<ZipSource> toSource(PdfArtifact artifact) {
+        String fileName = artifact.getFileName();
+        if (artifact.getRedirectUrl() != null) {
+            // ☁️ Copia guardada en Supabase: se baja completa a la caché local antes de pasar al ZIP
+            String objectName = artifact.getObjectName();
+            return artifactCache.store(objectName, storageService.download(PDF_FOLDER, objectName))
+                    .map(file -> new ZipSource(fileName, file));
+        }
+        return Mono.just(new ZipSource(fileName, artifact.getFile()));
+    }
+
+    /**
+     * 🔸 Escribe las entradas en el orden en que quedan listas. Corre en un hilo de boundedElastic,
+     * por lo que puede esperar de forma bloqueante a cada PDF; cerrar los streams cancela lo pendiente
+     * si el cliente corta la descarga. Cada archivo se abre antes de crear su entrada: si la caché local
+     * ya lo expulsó, el reporte se omite sin dejar una entrada vacía.
+     */
+    private void writeZip(Flux<ZipSource> sources, OutputStream out) {
+        int entries = 0;
+        try (ZipOutputStream zip = new ZipOutputStream(out);
+             Stream<ZipSource> ready = sources.toStream(concurrency)) {
+            // Los PDFs ya vienen comprimidos: se prioriza la velocidad
+            zip.setLevel(Deflater.BEST_SPEED);
+            Iterator<ZipSource> iterator = ready.iterator();
+            while (iterator.hasNext()) {
+                ZipSource source = iterator.next();
+                InputStream content;
+                try {
+                    content = Files.newInputStream(source.file());
+                } catch (NoSuchFileException e) {
+                    log.warn("⚠️ El PDF {} ya no está en la caché local, se omite del ZIP", source.fileName());
+                    continue;
+                }
+                try (content) {
+                    zip.putNextEntry(new ZipEntry(source.fileName()));
+                    content.transferTo(zip);
+                    zip.closeEntry();
+                }
+                entries++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el ZIP de reportes", e);
+        }
+        log.info("📦 ZIP de reportes exportado con {} PDFs", entries);
+    }
+
+    private record ZipSource(String fileName, Path file) {
+    }
+}
@@ -0,0 +1,112 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperExportManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportPDFDto;
+import pe.edu.vallegrande.report_workshop_service.model.ReportWorkshop;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🔹 Llena la plantilla Jasper del reporte y la exporta a PDF.
+ * El llenado y la exportación (bloqueantes) se ejecutan en {@link PdfRenderScheduler}.
+ * El PDF nunca se materializa completo como byte[]: se exporta en bloques de {@code pdf.render.chunk-size}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReportPdfRenderer {
+
+    private static final String REPORT_TEMPLATE = "reportPDF";
+
+    private final JasperTemplateRegistry templateRegistry;
+    private final PdfRenderScheduler renderScheduler;
+    private final PdfImageCache imageCache;
+    private final ReportDescriptionCache descriptionCache;
+
+    @Value("${pdf.render.chunk-size:65536}")
+    private int chunkSize;
+
+    /**
+     * 🔸 Genera el PDF del reporte con los talleres indicados.
+     * Primero se preparan en paralelo las imágenes ({@link PdfImageCache}) y el HTML de la descripción
+     * ({@link ReportDescriptionCache}); luego se llena la plantilla. Las imágenes quedan fijadas en la caché
+     * hasta que termina el llenado, para que una expulsión no borre un archivo que Jasper está leyendo.
+     * El Mono se completa cuando el llenado terminó bien; el Flux interno exporta el PDF por bloques
+     * a medida que el consumidor los pide.
+     */
+    public Mono<Flux<DataBuffer>> render(ReportDto report, List<ReportWorkshop> workshops) {
+        List<String> imageUrls = workshops.stream()
+                .filter(workshop -> workshop.getImageUrl() != null)
+                .flatMap(workshop -> Arrays.stream(workshop.getImageUrl()))
+                .toList();
+
+        return Mono.usingWhen(Mono.fromSupplier(() -> imageCache.pin(imageUrls)),
+                        pin -> Mono.zip(imageCache.localize(imageUrls), descriptionCache.get(report.getDescriptionUrl()))
+                                .flatMap(prepared -> renderScheduler.submit(() -> fill(report, workshops, prepared.getT1(), prepared.getT2()))),
+                        pin -> Mono.fromRunnable(pin::release))
+                .map(jasperPrint -> renderScheduler.stream(outputStream -> {
+                    try {
+                        JasperExportManager.exportReportToPdfStream(jasperPrint, outputStream);
+                    } catch (JRException e) {
+                        throw new IllegalStateException("Error exportando el PDF", e);
+                    }
+                }, chunkSize));
+    }
+
+    JasperPrint fill(ReportDto report, List<ReportWorkshop> workshops, Map<String, String> localImages,
+             String htmlContent) throws Exception {
+        JasperReport jasperReport = templateRegistry.get(REPORT_TEMPLATE);
+
+        List<ReportPDFDto> reportData = new ArrayList<>();
+        for (ReportWorkshop workshop : workshops) {
+            ReportPDFDto dto = new ReportPDFDto();
+            dto.setReport_id(report.getId());
+            dto.setReport_year(report.getYear());
+            dto.setTrimester(report.getTrimester());
+            dto.setReport_description(report.getDescriptionUrl()); // Es la URL
+            dto.setSchedule(report.getScheduleUrl());
+            dto.setStatus(report.getStatus());
+            dto.setWorkshop_id(workshop.getId());
+            dto.setWorkshop_name(workshop.getWorkshopName());
+            dto.setWorkshop_description(workshop.getDescription());
+            dto.setImage_url(localize(workshop.getImageUrl(), localImages));
+            reportData.add(dto);
+        }
+
+        // 🔧 Llenar parámetros
+        JRBeanCollectionDataSource dataSource = new JRBeanCollectionDataSource(reportData);
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("ReportTitle", "Reporte de Actividades");
+        parameters.put("SUBREPORT_DIR", "images/");
+        parameters.put("report_description_html_content", htmlContent);
+
+        // 📄 Generar PDF
+        return JasperFillManager.fillReport(jasperReport, parameters, dataSource);
+    }
+
+    private static String[] localize(String[] urls, Map<String, String> localImages) {
+        if (urls == null) {
+            return null;
+        }
+        return Arrays.stream(urls)
+                .map(url -> url == null ? null : localImages.getOrDefault(url.trim(), url))
+                .toArray(String[]::new);
+    }
+}
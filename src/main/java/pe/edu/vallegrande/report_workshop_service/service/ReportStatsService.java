@@ -0,0 +1,117 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportStatsDto;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportStatsRow;
+import pe.edu.vallegrande.report_workshop_service.repository.ReportMetaRepository;
+import pe.edu.vallegrande.report_workshop_service.webclient.ReportCoreClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 🔹 Estadísticas de reportes para el dashboard, calculadas en una sola consulta agregada sobre la base:
+ * año, trimestre y estado de cada reporte salen de report_meta y la cantidad de talleres, de report_workshops.
+ * Todos los nodos leen las mismas tablas, así que /stats responde lo mismo en cualquiera de ellos.
+ * Los talleres por status salen de los índices de {@link WorkshopCacheStore}, que ya sigue a los eventos Kafka.
+ * report_meta se escribe dentro de cada alta, edición, cambio de estado y eliminación; los reportes anteriores
+ * a la tabla se completan una vez por nodo desde el core, con el JWT del primer pedido a /stats.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportStatsService {
+
+    private static final String NO_YEAR = "sin año";
+    private static final String NO_TRIMESTER = "sin trimestre";
+    private static final String NO_STATUS = "sin estado";
+
+    private final ReportMetaRepository reportMetaRepo;
+    private final ReportCoreClient reportClient;
+    private final WorkshopCacheStore workshopCacheStore;
+
+    private final AtomicBoolean backfilled = new AtomicBoolean();
+
+    /**
+     * 💾 Alta, edición o cambio de estado: guarda año, trimestre y estado del reporte.
+     * Si falla solo se registra, porque el cambio en el core ya se hizo; el reporte queda con sus datos anteriores.
+     */
+    public Mono<Void> recordReport(Integer reportId, ReportDto report) {
+        return reportMetaRepo.upsert(reportId, report.getYear(), report.getTrimester(), report.getStatus())
+                .onErrorResume(e -> {
+                    log.warn("⚠️ No se pudieron guardar los datos del reporte {} para las estadísticas", reportId, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * 🔸 Cambio de estado (desactivar / restaurar) con los datos que devuelve el core.
+     */
+    public Mono<Void> recordStatus(ReportDto report) {
+        return recordReport(report.getId(), report);
+    }
+
+    public Mono<Void> recordDeleted(Integer reportId) {
+        return reportMetaRepo.deleteById(reportId)
+                .onErrorResume(e -> {
+                    log.warn("⚠️ No se pudieron borrar los datos del reporte {} de las estadísticas", reportId, e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 📊 Estadísticas actuales, leídas de la base en cada pedido.
+     */
+    public Mono<ReportStatsDto> snapshot() {
+        return backfill()
+                .then(reportMetaRepo.countByPeriodAndStatus().collectList())
+                .map(this::toStats);
+    }
+
+    /**
+     * 🔁 Guarda los datos de los reportes que aún no están en report_meta (creados antes de la tabla), para que
+     * no aparezcan "sin año". Corre una vez por nodo; si el core falla se reintenta en el siguiente pedido.
+     */
+    private Mono<Void> backfill() {
+        if (!backfilled.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        return reportClient.findAll()
+                .concatMap(report -> reportMetaRepo.insertIfAbsent(report.getId(), report.getYear(), report.getTrimester(), report.getStatus()))
+                .reduce(0L, Long::sum)
+                .doOnNext(inserted -> log.info("📊 Estadísticas: {} reportes anteriores a report_meta completados desde el core", inserted))
+                .onErrorResume(e -> {
+                    backfilled.set(false);
+                    log.warn("⚠️ No se pudieron completar desde el core los reportes sin datos para las estadísticas", e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private ReportStatsDto toStats(List<ReportStatsRow> rows) {
+        Map<String, Map<String, Long>> periods = new TreeMap<>();
+        Map<String, Long> byStatus = new TreeMap<>();
+        long totalReports = 0;
+        long totalWorkshops = 0;
+        for (ReportStatsRow row : rows) {
+            String year = row.getYear() == null ? NO_YEAR : row.getYear().toString();
+            String trimester = row.getTrimester() == null ? NO_TRIMESTER : row.getTrimester();
+            String status = row.getStatus() == null ? NO_STATUS : row.getStatus();
+            periods.computeIfAbsent(year, k -> new TreeMap<>()).merge(trimester, row.getReports(), Long::sum);
+            byStatus.merge(status, row.getReports(), Long::sum);
+            totalReports += row.getReports();
+            totalWorkshops += row.getWorkshops();
+        }
+        double average = totalReports == 0 ? 0 : (double) totalWorkshops / totalReports;
+        return new ReportStatsDto(totalReports, periods, byStatus, totalWorkshops, average,
+                workshopCacheStore.countByStatus(), Instant.now());
+    }
+}
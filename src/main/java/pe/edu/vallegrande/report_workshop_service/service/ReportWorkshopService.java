@@ -2,30 +2,31 @@ package pe.edu.vallegrande.report_workshop_service.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.sf.jasperreports.engine.*;
-import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
-import net.sf.jasperreports.engine.util.JRLoader;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import pe.edu.vallegrande.report_workshop_service.dto.*;
 import pe.edu.vallegrande.report_workshop_service.model.ReportWorkshop;
+import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
+import pe.edu.vallegrande.report_workshop_service.repository.ReportPdfVersionRepository;
 import pe.edu.vallegrande.report_workshop_service.repository.ReportWorkshopRepository;
-import pe.edu.vallegrande.report_workshop_service.repository.WorkshopCacheRepository;
+import pe.edu.vallegrande.report_workshop_service.webclient.ReportBatchLoader;
 import pe.edu.vallegrande.report_workshop_service.webclient.ReportCoreClient;
+import pe.edu.vallegrande.report_workshop_service.webclient.UpstreamOverloadedException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
-import java.net.URI;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
@@ -33,11 +34,46 @@ import java.util.*;
 public class ReportWorkshopService {
 
     private final ReportCoreClient reportClient;
+    private final ReportBatchLoader reportLoader;
     private final ReportWorkshopRepository reportWorkshopRepo;
-    private final WorkshopCacheRepository workshopCacheRepo;
+    private final WorkshopCacheStore workshopCacheStore;
     private final SupabaseStorageService storageService;
+    private final JasperTemplateRegistry templateRegistry;
+    private final ReportPdfRenderer pdfRenderer;
+    private final PdfArtifactCache artifactCache;
+    private final ReportPdfVersionRepository pdfVersions;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReportStatsService statsService;
 
-    private int getTrimesterOrder(String trimester) {
+    // Renders en curso por nombre guardado (reporte + rango de fechas + versión), para no generar dos veces el mismo PDF
+    private final Map<String, Mono<Path>> inFlightRenders = new ConcurrentHashMap<>();
+
+    // Espera máxima de un pedido que sigue el render en curso de otro
+    @Value("${pdf.render.follow-timeout-seconds:120}")
+    private long followTimeoutSeconds = 120;
+
+    @Value("${pdf.render.retry-after-seconds:10}")
+    private int retryAfterSeconds = 10;
+
+    // Reportes cuyos talleres se cargan por consulta al recorrer el listado
+    @Value("${reports.listing.batch-size:50}")
+    private int listingBatchSize = 50;
+
+    private static final String PDF_FOLDER = "pdf";
+    private static final String JOB_FOLDER = "pdf/jobs";
+    private static final String PDF_EXTENSION = ".pdf";
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_BATCH_IDS = 200;
+
+    // Orden del listado: año desc, trimestre del año y, como desempate estable, id
+    private static final Comparator<ListingKey> LISTING_ORDER = Comparator
+            .comparing(ListingKey::year, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparingInt(ListingKey::trimesterOrder)
+            .thenComparing(ListingKey::id, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private static int getTrimesterOrder(String trimester) {
+        if (trimester == null) return 5;
         return switch (trimester.toLowerCase()) {
             case "enero-marzo" -> 1;
             case "abril-junio" -> 2;
@@ -47,44 +83,121 @@ public class ReportWorkshopService {
         };
     }
 
+    /**
+     * 🔹 Listado completo en orden (año desc, trimestre). Se emite por lotes a medida que se cargan los talleres,
+     * por lo que los primeros reportes llegan al cliente antes de armar todo el conjunto.
+     */
     public Flux<ReportWithWorkshopsDto> findFilteredReports(String status, String trimester, Integer year, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
-        return reportClient.findAll()
-                .filter(r -> status == null || status.equalsIgnoreCase(r.getStatus()))
-                .filter(r -> trimester == null || trimester.equalsIgnoreCase(r.getTrimester()))
-                .filter(r -> year == null || year.equals(r.getYear()))
-                .flatMap(report -> reportWorkshopRepo.findByReportId(report.getId())
-                        .flatMap(rw -> buildDtoWithDateFilter(rw, workshopDateStart, workshopDateEnd))
-                        .collectList()
-                        .filter(list -> !list.isEmpty())
-                        .map(workshops -> {
-                            ReportWithWorkshopsDto dto = new ReportWithWorkshopsDto();
-                            dto.setReport(report);
-                            dto.setWorkshops(workshops);
-                            return dto;
-                        })
-                )
-                .sort(Comparator.comparing((ReportWithWorkshopsDto r) -> r.getReport().getYear()).reversed()
-                        .thenComparing(r -> getTrimesterOrder(r.getReport().getTrimester())));
+        return listReports(status, trimester, year, null, workshopDateStart, workshopDateEnd);
+    }
+
+    /**
+     * 🔹 Página del listado a partir de un cursor. Solo se cargan los talleres de los lotes necesarios
+     * para completar la página (se pide un reporte extra para saber si existe una siguiente).
+     */
+    public Mono<ReportPageDto> findFilteredReportsPage(String status, String trimester, Integer year, LocalDate workshopDateStart, LocalDate workshopDateEnd, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // ❗ El cursor se decodifica al suscribirse: uno inválido llega como error del Mono (400), no como excepción
+        return Mono.defer(() -> {
+            ListingKey after = cursor == null ? null : ListingKey.decode(cursor);
+            return listReports(status, trimester, year, after, workshopDateStart, workshopDateEnd)
+                    .take(pageSize + 1)
+                    .collectList()
+                    .map(rows -> {
+                        if (rows.size() <= pageSize) {
+                            return new ReportPageDto(rows, null);
+                        }
+                        List<ReportWithWorkshopsDto> page = rows.subList(0, pageSize);
+                        return new ReportPageDto(page, ListingKey.of(page.get(pageSize - 1).getReport()).encode());
+                    });
+        });
+    }
+
+    /**
+     * 📦 Ordena solo los metadatos de los reportes y carga sus talleres de a lotes (concatMap),
+     * así en memoria nunca hay más de un lote de talleres por petición.
+     * ⚠️ Límite: el core no ordena por (año, trimestre, id) ni acepta un cursor, por lo que cada pedido
+     * (también cada página) trae y ordena en memoria los metadatos de todos los reportes que pasan los filtros.
+     * Es aceptable con cientos de reportes; si el volumen crece, el orden y el keyset deben pasar a la consulta del core.
+     */
+    private Flux<ReportWithWorkshopsDto> listReports(String status, String trimester, Integer year, ListingKey after, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
+        return reportClient.findFiltered(status, trimester, year)
+                .filter(r -> after == null || LISTING_ORDER.compare(ListingKey.of(r), after) > 0)
+                .sort(Comparator.comparing(ListingKey::of, LISTING_ORDER))
+                .buffer(listingBatchSize)
+                .concatMap(batch -> loadWithWorkshops(batch, workshopDateStart, workshopDateEnd))
+                .filter(dto -> !dto.getWorkshops().isEmpty());
     }
 
     public Mono<ReportWithWorkshopsDto> findByIdWithDateFilter(Integer id, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
-        return reportClient.findById(id)
-                .flatMap(report -> reportWorkshopRepo.findByReportId(id)
-                        .flatMap(rw -> buildDtoWithDateFilter(rw, workshopDateStart, workshopDateEnd))
-                        .collectList()
-                        .map(workshops -> {
+        return reportLoader.load(id)
+                .flatMap(report -> loadWithWorkshops(List.of(report), workshopDateStart, workshopDateEnd).next());
+    }
+
+    /**
+     * 🔹 Varios reportes por ID, en el orden pedido. Los reportes se leen en lote a través de
+     * {@link ReportBatchLoader} y sus talleres con una sola consulta; los IDs inexistentes se omiten.
+     */
+    public Flux<ReportWithWorkshopsDto> findByIdsWithDateFilter(List<Integer> ids, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            return Flux.error(new TooManyIdsException(MAX_BATCH_IDS));
+        }
+        return Flux.fromIterable(ids)
+                .distinct()
+                .flatMapSequential(reportLoader::load)
+                .collectList()
+                .filter(reports -> !reports.isEmpty())
+                .flatMapMany(reports -> loadWithWorkshops(reports, workshopDateStart, workshopDateEnd));
+    }
+
+    /**
+     * 📦 Carga los talleres de varios reportes con una sola consulta a report_workshops (report_id = ANY)
+     * y los enriquece con la réplica en memoria de workshop_cache.
+     * El cruce se hace en memoria y se respeta el orden de los reportes recibidos.
+     */
+    private Flux<ReportWithWorkshopsDto> loadWithWorkshops(List<ReportDto> reports, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
+        Integer[] reportIds = reports.stream().map(ReportDto::getId).distinct().toArray(Integer[]::new);
+
+        return reportWorkshopRepo.findByReportIdIn(reportIds)
+                .collectList()
+                .flatMap(rows -> findWorkshopCaches(rows)
+                        .map(caches -> {
+                            Map<Integer, List<ReportWorkshopDto>> byReport = new HashMap<>();
+                            for (ReportWorkshop rw : rows) {
+                                buildDtoWithDateFilter(rw, caches, workshopDateStart, workshopDateEnd)
+                                        .ifPresent(dto -> byReport.computeIfAbsent(rw.getReportId(), k -> new ArrayList<>()).add(dto));
+                            }
+                            return byReport;
+                        }))
+                .flatMapIterable(byReport -> reports.stream()
+                        .map(report -> {
                             ReportWithWorkshopsDto dto = new ReportWithWorkshopsDto();
                             dto.setReport(report);
-                            dto.setWorkshops(workshops);
+                            dto.setWorkshops(byReport.getOrDefault(report.getId(), new ArrayList<>()));
                             return dto;
-                        }));
+                        })
+                        .toList());
+    }
+
+    private Mono<Map<Integer, WorkshopCache>> findWorkshopCaches(List<ReportWorkshop> rows) {
+        Integer[] workshopIds = rows.stream()
+                .map(ReportWorkshop::getWorkshopId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toArray(Integer[]::new);
+
+        if (workshopIds.length == 0) {
+            return Mono.just(Map.of());
+        }
+        return workshopCacheStore.findAllById(workshopIds);
     }
 
-    private Mono<ReportWorkshopDto> buildDtoWithDateFilter(ReportWorkshop rw, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
+    private Optional<ReportWorkshopDto> buildDtoWithDateFilter(ReportWorkshop rw, Map<Integer, WorkshopCache> caches, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
         ReportWorkshopDto dto = toDto(rw);
 
         if (rw.getWorkshopId() != null) {
-            return workshopCacheRepo.findById(rw.getWorkshopId())
+            return Optional.ofNullable(caches.get(rw.getWorkshopId()))
                     .filter(wc -> {
                         boolean inRange = true;
                         if (workshopDateStart != null) inRange = !wc.getDateStart().isBefore(workshopDateStart);
@@ -106,89 +219,185 @@ public class ReportWorkshopService {
             if (workshopDateEnd != null && rw.getWorkshopDateEnd() != null) {
                 inRange = inRange && !rw.getWorkshopDateEnd().isAfter(workshopDateEnd);
             }
-            return inRange ? Mono.just(dto) : Mono.empty();
+            return inRange ? Optional.of(dto) : Optional.empty();
         }
     }
 
     public Mono<ReportWithWorkshopsDto> create(ReportWithWorkshopsDto dto) {
         return reportClient.create(dto.getReport())
                 .flatMap(savedReport -> Flux.fromIterable(dto.getWorkshops())
-                        .flatMap(workshopDto -> {
-                            ReportWorkshop rw = fromDto(workshopDto);
-                            rw.setReportId(savedReport.getId());
-
-                            if (rw.getWorkshopId() != null) {
-                                return workshopCacheRepo.findById(rw.getWorkshopId())
-                                        .map(cache -> {
-                                            rw.setWorkshopName(cache.getName());
-                                            rw.setWorkshopDateStart(cache.getDateStart());
-                                            rw.setWorkshopDateEnd(cache.getDateEnd());
-                                            return rw;
-                                        });
-                            }
-                            return Mono.just(rw);
-                        })
+                        .flatMapSequential(workshopDto -> withCacheData(fromDto(workshopDto), savedReport.getId()))
                         .collectList()
-                        .flatMapMany(reportWorkshopRepo::saveAll)
+                        .flatMapMany(reportWorkshopRepo::insertAll)
                         .collectList()
                         .map(savedWorkshops -> {
                             ReportWithWorkshopsDto result = new ReportWithWorkshopsDto();
                             result.setReport(savedReport);
-                            result.setWorkshops(savedWorkshops.stream().map(this::toDto).toList());
+                            result.setWorkshops(savedWorkshops.stream().map(ReportWorkshopService::toDto).toList());
                             return result;
                         })
-                );
+                )
+                // 🖨️ El PDF se pre-renderiza en segundo plano para que el primer pedido lo encuentre guardado
+                .doOnNext(result -> eventPublisher.publishEvent(new ReportChangedEvent(result.getReport().getId(), result.getReport())))
+                .flatMap(result -> statsService.recordReport(result.getReport().getId(), result.getReport()).thenReturn(result));
     }
 
+    /**
+     * 🛠️ Edita el reporte en el core y sincroniza sus talleres comparando con lo guardado:
+     * solo se insertan, actualizan o eliminan las filas que cambiaron, todo en una única transacción.
+     */
     public Mono<ReportWithWorkshopsDto> update(Integer id, ReportWithWorkshopsDto dto) {
         return reportClient.update(id, dto.getReport())
-                .flatMap(updatedReport -> reportWorkshopRepo.deleteByReportId(id)
-                        .thenMany(Flux.fromIterable(dto.getWorkshops()))
-                        .flatMap(workshopDto -> {
-                            ReportWorkshop rw = fromDto(workshopDto);
-                            rw.setReportId(id);
-
-                            if (rw.getWorkshopId() != null) {
-                                return workshopCacheRepo.findById(rw.getWorkshopId())
-                                        .map(cache -> {
-                                            rw.setWorkshopName(cache.getName());
-                                            rw.setWorkshopDateStart(cache.getDateStart());
-                                            rw.setWorkshopDateEnd(cache.getDateEnd());
-                                            return rw;
-                                        });
-                            }
-                            return Mono.just(rw);
-                        })
-                        .collectList()
-                        .flatMapMany(reportWorkshopRepo::saveAll)
+                .flatMap(updatedReport -> Flux.fromIterable(dto.getWorkshops())
+                        .flatMapSequential(workshopDto -> withCacheData(fromDto(workshopDto), id))
                         .collectList()
+                        .flatMap(incoming -> syncWorkshops(id, incoming))
+                        .flatMap(savedWorkshops -> invalidatePdfs(id).thenReturn(savedWorkshops))
                         .map(savedWorkshops -> {
                             ReportWithWorkshopsDto result = new ReportWithWorkshopsDto();
                             result.setReport(updatedReport);
-                            result.setWorkshops(savedWorkshops.stream().map(this::toDto).toList());
+                            result.setWorkshops(savedWorkshops.stream().map(ReportWorkshopService::toDto).toList());
                             return result;
                         })
-                );
+                )
+                .doOnNext(result -> eventPublisher.publishEvent(new ReportChangedEvent(id, result.getReport())))
+                .flatMap(result -> statsService.recordReport(id, result.getReport()).thenReturn(result));
+    }
+
+    /**
+     * 🔸 Asocia el taller al reporte y, si viene de workshop_cache, copia nombre y fechas del cache.
+     * Si el taller ya no existe en el cache se descarta.
+     */
+    private Mono<ReportWorkshop> withCacheData(ReportWorkshop rw, Integer reportId) {
+        rw.setReportId(reportId);
+        if (rw.getWorkshopId() == null) {
+            return Mono.just(rw);
+        }
+        return workshopCacheStore.findById(rw.getWorkshopId())
+                .map(cache -> {
+                    rw.setWorkshopName(cache.getName());
+                    rw.setWorkshopDateStart(cache.getDateStart());
+                    rw.setWorkshopDateEnd(cache.getDateEnd());
+                    return rw;
+                });
+    }
+
+    /**
+     * 🔁 Diferencia por id entre los talleres recibidos y los guardados:
+     * ids desconocidos (o nulos) se insertan, los modificados se actualizan en lote y los ausentes se eliminan.
+     * La lectura, la diferencia y las escrituras van en una sola transacción con las filas bloqueadas (FOR UPDATE),
+     * y si las filas afectadas no son las esperadas se revierte todo.
+     * Devuelve los talleres del reporte en el orden recibido.
+     */
+    private Mono<List<ReportWorkshop>> syncWorkshops(Integer reportId, List<ReportWorkshop> incoming) {
+        return reportWorkshopRepo.findByReportIdForUpdate(reportId)
+                .collectMap(ReportWorkshop::getId)
+                .flatMap(stored -> {
+                    List<ReportWorkshop> toInsert = new ArrayList<>();
+                    List<ReportWorkshop> toUpdate = new ArrayList<>();
+                    Set<Integer> keptIds = new HashSet<>();
+
+                    for (ReportWorkshop rw : incoming) {
+                        ReportWorkshop current = rw.getId() == null ? null : stored.get(rw.getId());
+                        if (current == null || !keptIds.add(rw.getId())) {
+                            // Un id de otro reporte o repetido en la petición se trata como taller nuevo
+                            rw.setId(null);
+                            toInsert.add(rw);
+                        } else if (!current.equals(rw)) {
+                            toUpdate.add(rw);
+                        }
+                    }
+                    Integer[] toDelete = stored.keySet().stream()
+                            .filter(storedId -> !keptIds.contains(storedId))
+                            .toArray(Integer[]::new);
+                    int unchanged = keptIds.size() - toUpdate.size();
+
+                    Mono<Long> deleted = toDelete.length == 0
+                            ? Mono.just(0L)
+                            : reportWorkshopRepo.deleteByReportIdAndIdIn(reportId, toDelete);
+                    Mono<List<ReportWorkshop>> inserted = toInsert.isEmpty()
+                            ? Mono.just(List.of())
+                            : reportWorkshopRepo.insertAll(toInsert).collectList();
+
+                    return deleted
+                            .zipWith(reportWorkshopRepo.updateAll(toUpdate))
+                            .flatMap(counts -> counts.getT1() == toDelete.length && counts.getT2() == toUpdate.size()
+                                    ? Mono.just(counts)
+                                    : Mono.error(new ConcurrentReportUpdateException(reportId)))
+                            .zipWhen(counts -> inserted)
+                            .doOnNext(result -> log.info("✏️ Reporte {}: {} talleres insertados, {} actualizados, {} eliminados, {} sin cambios",
+                                    reportId, result.getT2().size(), result.getT1().getT2(), result.getT1().getT1(), unchanged))
+                            .map(result -> {
+                                Iterator<ReportWorkshop> saved = result.getT2().iterator();
+                                return incoming.stream()
+                                        .map(rw -> rw.getId() == null && saved.hasNext() ? saved.next() : rw)
+                                        .toList();
+                            });
+                })
+                .as(transactionalOperator::transactional);
     }
 
     public Mono<Void> disable(Integer id) {
-        return reportClient.disable(id);
+        return reportClient.disable(id)
+                .then(refreshStats(id));
     }
 
     public Mono<Void> restore(Integer id) {
-        return reportClient.restore(id);
+        return reportClient.restore(id)
+                .then(refreshStats(id));
     }
 
     public Mono<Void> delete(Integer id) {
         return reportClient.delete(id)
-                .then(reportWorkshopRepo.deleteByReportId(id));
+                .then(reportWorkshopRepo.deleteByReportId(id))
+                .then(Mono.defer(() -> invalidatePdfs(id)))
+                .then(Mono.defer(() -> statsService.recordDeleted(id)));
+    }
+
+    /**
+     * ❌ Los PDFs del reporte quedaron desactualizados: se pasa a una versión nueva en la base de datos,
+     * con lo que ningún nodo vuelve a servir sus copias anteriores (locales o de Supabase).
+     * Las copias de este nodo se borran enseguida y las de Supabase se limpian aparte; si Supabase falla
+     * se sigue adelante, porque con la versión nueva esas copias ya no se usan.
+     */
+    public Mono<Void> invalidatePdfs(Integer reportId) {
+        artifactCache.invalidateReport(reportId);
+        return pdfVersions.bump(reportId)
+                .flatMap(version -> storageService.deleteReportPdfs(PDF_FOLDER, reportId, version)
+                        .doOnNext(deleted -> log.info("❌ PDFs del reporte {} en la versión {}: {} copias viejas borradas de Supabase",
+                                reportId, version, deleted))
+                        .onErrorResume(e -> {
+                            log.warn("⚠️ No se pudieron borrar de Supabase los PDFs viejos del reporte {}", reportId, e);
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    /**
+     * 📊 Lee el nuevo estado del reporte y lo guarda para las estadísticas antes de responder;
+     * si falla solo se registra, porque el cambio en el core ya se hizo.
+     */
+    private Mono<Void> refreshStats(Integer id) {
+        return Mono.defer(() -> reportClient.findById(id))
+                .flatMap(statsService::recordStatus)
+                .onErrorResume(e -> {
+                    log.warn("⚠️ No se pudo actualizar el estado del reporte {} en las estadísticas", id, e);
+                    return Mono.empty();
+                })
+                .then();
     }
 
     /**
      * 🔹 Generación de PDF de reporte por ID con filtro de fechas
      */
-    public Mono<ResponseEntity<byte[]>> generatePdfByIdWithDateFilter(Integer reportId, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
-        String folder = "pdf";
+    public Mono<PdfArtifact> generatePdfByIdWithDateFilter(Integer reportId, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
+        return generatePdf(reportId, workshopDateStart, workshopDateEnd, reportLoader.load(reportId));
+    }
+
+    /**
+     * 🔸 Nombre del PDF para un reporte y rango de fechas; identifica también a los trabajos de exportación.
+     */
+    static String pdfFileName(Integer reportId, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
         StringBuilder fileNameBuilder = new StringBuilder("reporte_" + reportId);
         if (workshopDateStart != null) {
             fileNameBuilder.append("_from_").append(workshopDateStart);
@@ -196,93 +405,186 @@ public class ReportWorkshopService {
         if (workshopDateEnd != null) {
             fileNameBuilder.append("_to_").append(workshopDateEnd);
         }
-        fileNameBuilder.append(".pdf");
+        return fileNameBuilder.append(PDF_EXTENSION).toString();
+    }
+
+    /**
+     * 🔸 Nombre con el que se guarda una versión del PDF (caché local y Supabase): reporte_1.v3.pdf.
+     * La versión 0 conserva el nombre sin sufijo, así las copias anteriores a las versiones siguen sirviendo.
+     */
+    static String objectName(String fileName, long version) {
+        if (version == 0) {
+            return fileName;
+        }
+        return fileName.substring(0, fileName.length() - PDF_EXTENSION.length()) + ".v" + version + PDF_EXTENSION;
+    }
+
+    static boolean isVersion(String objectName, long version) {
+        return objectName.endsWith(".v" + version + PDF_EXTENSION);
+    }
+
+    /**
+     * 🔸 Si un nombre guardado es de alguna variante del PDF del reporte (reporte_1 no incluye a reporte_10).
+     */
+    static boolean isReportPdf(String objectName, Integer reportId) {
+        String prefix = "reporte_" + reportId;
+        return objectName.startsWith(prefix + ".") || objectName.startsWith(prefix + "_");
+    }
+
+    /**
+     * 🔸 Generación de PDF con los datos del reporte ya resueltos por quien llama (p. ej. el ZIP de exportación).
+     */
+    Mono<PdfArtifact> generatePdf(Integer reportId, LocalDate workshopDateStart, LocalDate workshopDateEnd, Mono<ReportDto> reportSource) {
+        return generatePdf(reportId, workshopDateStart, workshopDateEnd, reportSource, true);
+    }
+
+    /**
+     * 🔸 Vuelve a generar y subir el PDF sin filtros del reporte aunque ya haya una copia guardada
+     * (pre-render en segundo plano). Termina cuando el PDF quedó en la caché local.
+     */
+    Mono<Void> refreshPdf(ReportDto report) {
+        return generatePdf(report.getId(), null, null, Mono.just(report), false).then();
+    }
+
+    /**
+     * 🔸 La versión vigente se lee antes que los datos del reporte: si una edición llega durante el render,
+     * el PDF queda guardado con la versión anterior y nadie lo vuelve a pedir.
+     */
+    private Mono<PdfArtifact> generatePdf(Integer reportId, LocalDate workshopDateStart, LocalDate workshopDateEnd,
+                                          Mono<ReportDto> reportSource, boolean reuseStored) {
+        String fileName = pdfFileName(reportId, workshopDateStart, workshopDateEnd);
+        return pdfVersions.currentVersion(reportId)
+                .flatMap(version -> generatePdf(reportId, workshopDateStart, workshopDateEnd, reportSource, reuseStored,
+                        fileName, objectName(fileName, version)));
+    }
+
+    private Mono<PdfArtifact> generatePdf(Integer reportId, LocalDate workshopDateStart, LocalDate workshopDateEnd,
+                                          Mono<ReportDto> reportSource, boolean reuseStored, String fileName, String objectName) {
+        String folder = PDF_FOLDER;
+
+        // 📁 Copia local del nodo: se sirve sin salir a Supabase
+        Optional<Path> cached = reuseStored ? artifactCache.get(objectName) : Optional.empty();
+        if (cached.isPresent()) {
+            return Mono.just(PdfArtifact.file(fileName, cached.get()));
+        }
 
-        String fileName = fileNameBuilder.toString();
+        // 🔁 Ya hay un render en curso para los mismos parámetros: se espera su resultado
+        Mono<Path> inFlight = inFlightRenders.get(objectName);
+        if (inFlight != null) {
+            return followRender(inFlight, reportId, workshopDateStart, workshopDateEnd, reportSource, fileName);
+        }
 
-        return storageService.fileExists(folder, fileName)
+        Mono<Boolean> storedInSupabase = reuseStored ? storageService.fileExists(folder, objectName) : Mono.just(false);
+        return storedInSupabase
                 .flatMap(exists -> {
                     if (exists) {
-                        String url = storageService.getPublicUrl(folder, fileName);
-                        HttpHeaders headers = new HttpHeaders();
-                        headers.setLocation(URI.create(url));
-                        return Mono.just(ResponseEntity.status(HttpStatus.FOUND)
-                                .headers(headers)
-                                .body(new byte[0]));
+                        return Mono.just(PdfArtifact.redirect(fileName, objectName, storageService.getPublicUrl(folder, objectName)));
                     }
 
-                    return reportClient.findById(reportId)
-                            .flatMap(report -> reportWorkshopRepo.findByReportId(reportId)
-                                    .filter(rw -> {
-                                        boolean inRange = true;
-                                        if (workshopDateStart != null && rw.getWorkshopDateStart() != null) {
-                                            inRange = !rw.getWorkshopDateStart().isBefore(workshopDateStart);
-                                        }
-                                        if (workshopDateEnd != null && rw.getWorkshopDateEnd() != null) {
-                                            inRange = inRange && !rw.getWorkshopDateEnd().isAfter(workshopDateEnd);
-                                        }
-                                        return inRange;
-                                    })
-                                    .collectList()
-                                    .flatMap(filteredWorkshops -> {
-                                        try {
-                                            InputStream inputStream = new ClassPathResource("reportPDF.jasper").getInputStream();
-                                            JasperReport jasperReport = (JasperReport) JRLoader.loadObject(inputStream);
-
-                                            List<ReportPDFDto> reportData = new ArrayList<>();
-                                            for (ReportWorkshop workshop : filteredWorkshops) {
-                                                ReportPDFDto dto = new ReportPDFDto();
-                                                dto.setReport_id(report.getId());
-                                                dto.setReport_year(report.getYear());
-                                                dto.setTrimester(report.getTrimester());
-                                                dto.setReport_description(report.getDescriptionUrl()); // Es la URL
-                                                dto.setSchedule(report.getScheduleUrl());
-                                                dto.setStatus(report.getStatus());
-                                                dto.setWorkshop_id(workshop.getId());
-                                                dto.setWorkshop_name(workshop.getWorkshopName());
-                                                dto.setWorkshop_description(workshop.getDescription());
-                                                dto.setImage_url(workshop.getImageUrl());
-                                                reportData.add(dto);
-                                            }
-
-                                            // 🔁 Leer el HTML desde la URL
-                                            String htmlContent = "";
-                                            try (InputStream htmlStream = new URL(report.getDescriptionUrl()).openStream()) {
-                                                htmlContent = new String(htmlStream.readAllBytes(), StandardCharsets.UTF_8);
-                                            } catch (Exception ex) {
-                                                log.warn("⚠️ No se pudo leer el HTML desde la URL: {}", report.getDescriptionUrl(), ex);
-                                            }
-
-                                            // 🔧 Llenar parámetros
-                                            JRBeanCollectionDataSource dataSource = new JRBeanCollectionDataSource(reportData);
-                                            Map<String, Object> parameters = new HashMap<>();
-                                            parameters.put("ReportTitle", "Reporte de Actividades");
-                                            parameters.put("SUBREPORT_DIR", "images/");
-                                            parameters.put("report_description_html_content", htmlContent);
-
-                                            // 📄 Generar PDF
-                                            JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, parameters, dataSource);
-                                            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                                            JasperExportManager.exportReportToPdfStream(jasperPrint, baos);
-                                            byte[] pdfBytes = baos.toByteArray();
-
-                                            // ☁️ Subir a Supabase
-                                            storageService.uploadPdf(folder, fileName, pdfBytes).subscribe();
-
-                                            HttpHeaders headers = new HttpHeaders();
-                                            headers.setContentType(MediaType.APPLICATION_PDF);
-                                            headers.setContentDispositionFormData("attachment", fileName);
-                                            return Mono.just(new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK));
-                                        } catch (Exception e) {
-                                            log.error("❌ Error al generar PDF:", e);
-                                            return Mono.error(new RuntimeException("Error generando el PDF", e));
-                                        }
+                    Sinks.One<Path> stored = Sinks.one();
+                    Mono<Path> render = stored.asMono();
+                    Mono<Path> leader = inFlightRenders.putIfAbsent(objectName, render);
+                    if (leader != null) {
+                        return followRender(leader, reportId, workshopDateStart, workshopDateEnd, reportSource, fileName);
+                    }
+
+                    return reportSource
+                            .flatMap(report -> findWorkshopsForPdf(reportId, workshopDateStart, workshopDateEnd)
+                                    .flatMap(filteredWorkshops -> pdfRenderer.render(report, filteredWorkshops))
+                                    // 📁 El export se escribe primero en la caché local; la respuesta y la subida leen ese archivo
+                                    .flatMap(pdf -> artifactCache.store(objectName, pdf))
+                                    .onErrorMap(e -> !(e instanceof PdfRenderRejectedException || e instanceof UpstreamOverloadedException), e -> {
+                                        log.error("❌ Error al generar PDF:", e);
+                                        return new RuntimeException("Error generando el PDF", e);
                                     }))
-                            .switchIfEmpty(Mono.error(new NoSuchElementException("Reporte no encontrado con ID: " + reportId)));
+                            .switchIfEmpty(Mono.error(new NoSuchElementException("Reporte no encontrado con ID: " + reportId)))
+                            .doOnNext(file -> {
+                                stored.tryEmitValue(file);
+                                upload(folder, objectName, file);
+                            })
+                            // ❗ Si el líder falla o se cancela, los que esperaban no quedan colgados
+                            .doOnError(stored::tryEmitError)
+                            .doOnCancel(() -> stored.tryEmitError(new CancellationException("Render de " + fileName + " cancelado")))
+                            .doFinally(signal -> inFlightRenders.remove(objectName, render))
+                            .map(file -> PdfArtifact.file(fileName, file));
                 });
     }
 
-    private ReportWorkshopDto toDto(ReportWorkshop rw) {
+    /**
+     * 🔸 PDF de un trabajo en segundo plano, generado con la copia del reporte guardada al encolarlo.
+     * Se guarda con el nombre propio del trabajo (caché local y Supabase), nunca con el del reporte:
+     * un trabajo encolado antes de una edición no puede pisar el PDF vigente. Termina cuando la copia quedó subida.
+     */
+    Mono<Void> renderJobPdf(String objectName, Integer reportId, LocalDate workshopDateStart, LocalDate workshopDateEnd,
+                            ReportDto report) {
+        return findWorkshopsForPdf(reportId, workshopDateStart, workshopDateEnd)
+                .flatMap(workshops -> pdfRenderer.render(report, workshops))
+                .flatMap(pdf -> artifactCache.store(objectName, pdf))
+                .flatMap(file -> storageService.uploadPdf(JOB_FOLDER, objectName, file))
+                .then();
+    }
+
+    /**
+     * 🔸 PDF que ya generó un trabajo: su archivo en la caché local o, si este nodo no lo tiene, su copia en Supabase.
+     */
+    PdfArtifact jobPdf(String fileName, String objectName) {
+        return artifactCache.get(objectName)
+                .map(file -> PdfArtifact.file(fileName, file))
+                .orElseGet(() -> PdfArtifact.redirect(fileName, objectName, storageService.getPublicUrl(JOB_FOLDER, objectName)));
+    }
+
+    private Mono<List<ReportWorkshop>> findWorkshopsForPdf(Integer reportId, LocalDate workshopDateStart, LocalDate workshopDateEnd) {
+        return reportWorkshopRepo.findByReportId(reportId)
+                .filter(rw -> {
+                    boolean inRange = true;
+                    if (workshopDateStart != null && rw.getWorkshopDateStart() != null) {
+                        inRange = !rw.getWorkshopDateStart().isBefore(workshopDateStart);
+                    }
+                    if (workshopDateEnd != null && rw.getWorkshopDateEnd() != null) {
+                        inRange = inRange && !rw.getWorkshopDateEnd().isAfter(workshopDateEnd);
+                    }
+                    return inRange;
+                })
+                .collectList();
+    }
+
+    /**
+     * ☁️ Sube a Supabase el PDF ya guardado en la caché local. Es un paso aparte:
+     * si el límite de concurrencia lo rechaza o falla, la respuesta ya se sirvió desde el archivo.
+     */
+    private void upload(String folder, String fileName, Path file) {
+        storageService.uploadPdf(folder, fileName, file)
+                .subscribe(null, e -> log.warn("⚠️ No se pudo subir el PDF {}", fileName, e));
+    }
+
+    /**
+     * 🔸 Espera el render en curso de otro pedido y sirve el archivo que dejó en la caché local.
+     * Si ese render se canceló, este pedido lo vuelve a intentar por su cuenta; si tarda más de
+     * {@code pdf.render.follow-timeout-seconds}, se responde como cola llena para que el cliente reintente.
+     */
+    private Mono<PdfArtifact> followRender(Mono<Path> inFlight, Integer reportId, LocalDate workshopDateStart, LocalDate workshopDateEnd,
+                                           Mono<ReportDto> reportSource, String fileName) {
+        return inFlight
+                .timeout(Duration.ofSeconds(followTimeoutSeconds))
+                .map(file -> PdfArtifact.file(fileName, file))
+                .onErrorMap(TimeoutException.class, e -> {
+                    log.warn("⚠️ El render en curso de {} no terminó en {} s", fileName, followTimeoutSeconds);
+                    return new PdfRenderRejectedException(retryAfterSeconds);
+                })
+                .onErrorResume(CancellationException.class,
+                        e -> generatePdf(reportId, workshopDateStart, workshopDateEnd, reportSource));
+    }
+
+    /**
+     * ♻️ Recarga en caliente una plantilla Jasper por nombre
+     */
+    public Mono<Void> reloadTemplate(String name) {
+        return Mono.fromRunnable(() -> templateRegistry.reload(name))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    static ReportWorkshopDto toDto(ReportWorkshop rw) {
         ReportWorkshopDto dto = new ReportWorkshopDto();
         dto.setId(rw.getId());
         dto.setReportId(rw.getReportId());
@@ -295,7 +597,7 @@ public class ReportWorkshopService {
         return dto;
     }
 
-    private ReportWorkshop fromDto(ReportWorkshopDto dto) {
+    static ReportWorkshop fromDto(ReportWorkshopDto dto) {
         return ReportWorkshop.builder()
                 .id(dto.getId())
                 .reportId(dto.getReportId())
@@ -307,4 +609,32 @@ public class ReportWorkshopService {
                 .imageUrl(dto.getImageUrl())
                 .build();
     }
+
+    /**
+     * 🔸 Posición de un reporte en el listado; el cursor es su forma codificada en Base64 (URL-safe).
+     */
+    private record ListingKey(Integer year, int trimesterOrder, Integer id) {
+
+        static ListingKey of(ReportDto report) {
+            return new ListingKey(report.getYear(), getTrimesterOrder(report.getTrimester()), report.getId());
+        }
+
+        String encode() {
+            String raw = year + ":" + trimesterOrder + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static ListingKey decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+                return new ListingKey(parseNullable(parts[0]), Integer.parseInt(parts[1]), parseNullable(parts[2]));
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException(cursor);
+            }
+        }
+
+        private static Integer parseNullable(String value) {
+            return "null".equals(value) ? null : Integer.valueOf(value);
+        }
+    }
 }
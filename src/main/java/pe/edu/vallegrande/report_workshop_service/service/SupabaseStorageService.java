@@ -1,59 +1,139 @@
 package pe.edu.vallegrande.report_workshop_service.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import pe.edu.vallegrande.report_workshop_service.webclient.OutboundCallPolicy;
+import pe.edu.vallegrande.report_workshop_service.webclient.UpstreamOverloadedException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.file.Path;
+import java.util.Map;
+
 @Slf4j
 @Service
 public class SupabaseStorageService {
 
+    private static final int UPLOAD_CHUNK_SIZE = 65536;
+    // Máximo de objetos por listado; un reporte tiene un PDF por rango de fechas pedido
+    private static final int LIST_LIMIT = 1000;
+
     private final WebClient webClient;
+    private final OutboundCallPolicy policy;
     private final String bucket;
     private final String projectUrl;
 
     public SupabaseStorageService(
+            @Qualifier("supabaseWebClient") WebClient webClient,
+            @Qualifier("supabasePolicy") OutboundCallPolicy policy,
             @Value("${supabase.project-url}") String projectUrl,
-            @Value("${supabase.api-key}") String apiKey,
             @Value("${supabase.bucket}") String bucket
     ) {
         this.projectUrl = projectUrl;
         this.bucket = bucket;
-        this.webClient = WebClient.builder()
-                .baseUrl(projectUrl + "/storage/v1")
-                .defaultHeader("apikey", apiKey)
-                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
-                .build();
+        this.webClient = webClient;
+        this.policy = policy;
     }
 
-    public Mono<String> uploadPdf(String folder, String fileName, byte[] pdfBytes) {
+    /**
+     * 🔸 Sube en streaming (transferencia por bloques) un PDF ya escrito en disco, sin materializarlo en memoria.
+     * El cuerpo se abre recién al enviarse el pedido: si el límite de concurrencia lo rechaza,
+     * el archivo nunca se lee y no queda ninguna fuente compartida esperando a este suscriptor.
+     */
+    public Mono<String> uploadPdf(String folder, String fileName, Path file) {
         String path = folder + "/" + fileName;
-        return webClient.put()
+        return policy.limited("uploadPdfStream", webClient.put()
                 .uri(uriBuilder -> uriBuilder.path("/object/{bucket}/{path}")
                         .build(bucket, path))
                 .header("x-upsert", "true")
                 .contentType(MediaType.APPLICATION_PDF)
-                .body(BodyInserters.fromValue(pdfBytes))
+                .body(BodyInserters.fromDataBuffers(
+                        DataBufferUtils.read(file, DefaultDataBufferFactory.sharedInstance, UPLOAD_CHUNK_SIZE)))
                 .retrieve()
-                .bodyToMono(String.class)
+                .bodyToMono(String.class))
                 .map(response -> projectUrl + "/storage/v1/object/public/" + bucket + "/" + path);
     }
 
+    /**
+     * 🔍 Indica si el objeto ya está en el bucket. Solo "no encontrado" responde false: el rechazo del límite
+     * de concurrencia ({@link UpstreamOverloadedException}), los timeouts y los demás errores se propagan,
+     * para no tomarlos como "no guardado" y generar el PDF de nuevo justo cuando Supabase está saturado.
+     */
     public Mono<Boolean> fileExists(String folder, String fileName) {
         String path = folder + "/" + fileName;
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/object/info/{bucket}/{path}")
+        return policy.hedged("fileExists", webClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("/object/info/{bucket}/{path}")
+                                .build(bucket, path))
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .map(resp -> true)
+                .onErrorResume(SupabaseStorageService::isNotFound, err -> Mono.just(false));
+    }
+
+    /**
+     * 🔸 Objeto inexistente: 404, o 400 con statusCode "404" en el cuerpo, como responden algunas versiones de Storage.
+     */
+    private static boolean isNotFound(Throwable error) {
+        if (!(error instanceof WebClientResponseException response)) {
+            return false;
+        }
+        int status = response.getStatusCode().value();
+        return status == 404 || status == 400 && response.getResponseBodyAsString().contains("\"statusCode\":\"404\"");
+    }
+
+    /**
+     * 🔸 Descarga en streaming un archivo ya guardado en el bucket.
+     * No pasa por el límite de concurrencia (que trabaja sobre Mono): quien lo usa lee un archivo a la vez.
+     */
+    public Flux<DataBuffer> download(String folder, String fileName) {
+        String path = folder + "/" + fileName;
+        return policy.timed("download", webClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/object/{bucket}/{path}")
                         .build(bucket, path))
                 .retrieve()
-                .bodyToMono(String.class)
-                .map(resp -> true)
-                .onErrorResume(err -> Mono.just(false));
+                .bodyToFlux(DataBuffer.class));
+    }
+
+    /**
+     * ❌ Borra del bucket las variantes (rangos de fechas) del PDF de un reporte que no son de la versión indicada:
+     * lista los objetos que empiezan con el nombre del reporte y los elimina en un solo pedido.
+     * Devuelve cuántos se borraron.
+     */
+    public Mono<Long> deleteReportPdfs(String folder, Integer reportId, long keepVersion) {
+        String prefix = "reporte_" + reportId;
+        return policy.limited("listPdfs", webClient.post()
+                        .uri(uriBuilder -> uriBuilder.path("/object/list/{bucket}").build(bucket))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(Map.of("prefix", folder, "search", prefix, "limit", LIST_LIMIT))
+                        .retrieve()
+                        .bodyToFlux(JsonNode.class)
+                        .map(object -> object.path("name").asText())
+                        // La búsqueda es por prefijo: reporte_1 también trae reporte_10
+                        .filter(name -> ReportWorkshopService.isReportPdf(name, reportId))
+                        .filter(name -> !ReportWorkshopService.isVersion(name, keepVersion))
+                        .map(name -> folder + "/" + name)
+                        .collectList())
+                .flatMap(paths -> paths.isEmpty()
+                        ? Mono.just(0L)
+                        : policy.limited("deletePdfs", webClient.method(HttpMethod.DELETE)
+                                        .uri(uriBuilder -> uriBuilder.path("/object/{bucket}").build(bucket))
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .bodyValue(Map.of("prefixes", paths))
+                                        .retrieve()
+                                        .toBodilessEntity())
+                                .thenReturn((long) paths.size()));
     }
 
     public String getPublicUrl(String folder, String fileName) {
@@ -0,0 +1,12 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+/**
+ * 🔹 Se lanza cuando la lectura en lote pide más reportes de los permitidos.
+ * El controlador la traduce a 400.
+ */
+public class TooManyIdsException extends RuntimeException {
+
+    public TooManyIdsException(int max) {
+        super("Se pueden pedir como máximo " + max + " reportes por lote");
+    }
+}
@@ -2,32 +2,56 @@ package pe.edu.vallegrande.report_workshop_service.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.report_workshop_service.dto.WorkshopCachePageDto;
 import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
 import pe.edu.vallegrande.report_workshop_service.repository.WorkshopCacheRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.List;
+
 /**
  * 🔹 Servicio para consultar los talleres almacenados en el cache.
+ * Las lecturas se resuelven en la réplica en memoria {@link WorkshopCacheStore}.
  */
 @Service
 @RequiredArgsConstructor
 public class WorkshopCacheService {
 
+    private final WorkshopCacheStore store;
     private final WorkshopCacheRepository repository;
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     /**
      * 🔸 Lista talleres del cache, con filtro opcional por status.
      */
     public Flux<WorkshopCache> findAll(String status) {
-        return repository.findAll()
-                .filter(workshop -> status == null || workshop.getStatus().equalsIgnoreCase(status));
+        return store.findAll(status);
+    }
+
+    /**
+     * 🔸 Página de talleres filtrada en SQL y paginada por keyset sobre el id.
+     * Se pide una fila extra para saber si existe una página siguiente.
+     */
+    public Mono<WorkshopCachePageDto> findPage(String status, LocalDate dateFrom, LocalDate dateTo, Integer after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return repository.findPage(status, dateFrom, dateTo, after, pageSize + 1)
+                .collectList()
+                .map(rows -> {
+                    if (rows.size() <= pageSize) {
+                        return new WorkshopCachePageDto(rows, null);
+                    }
+                    List<WorkshopCache> page = rows.subList(0, pageSize);
+                    return new WorkshopCachePageDto(page, page.get(pageSize - 1).getId());
+                });
     }
 
     /**
      * 🔸 Busca un taller del cache por ID.
      */
     public Mono<WorkshopCache> findById(Integer id) {
-        return repository.findById(id);
+        return store.findById(id);
     }
 }
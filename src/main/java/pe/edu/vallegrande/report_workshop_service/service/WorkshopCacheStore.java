@@ -0,0 +1,225 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
+import pe.edu.vallegrande.report_workshop_service.repository.WorkshopCacheRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 🔹 Réplica en memoria de la tabla workshop_cache.
+ * Se carga desde la base de datos al iniciar y el consumidor Kafka la actualiza después de cada escritura confirmada.
+ * Como todas las instancias comparten el grupo de consumo, cada una solo recibe los eventos de sus particiones;
+ * la tabla (que sí escriben todas) es la fuente de verdad y la réplica se resincroniza con ella periódicamente
+ * para tomar los cambios que consumieron las demás instancias.
+ * Mantiene índices por id, por status y por fecha de inicio; mientras la carga inicial no termina,
+ * las consultas se resuelven contra el repositorio.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkshopCacheStore {
+
+    private final WorkshopCacheRepository repository;
+
+    private final Map<Integer, WorkshopCache> byId = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> byStatus = new ConcurrentHashMap<>();
+    private final NavigableMap<LocalDate, Set<Integer>> byDateStart = new ConcurrentSkipListMap<>();
+    // Cantidad de talleres por status, mantenida junto con los índices para contarlos sin recorrerlos
+    private final Map<String, Integer> statusCounts = new ConcurrentHashMap<>();
+    // Talleres aplicados por Kafka mientras se lee la tabla: son más nuevos que la foto y no se pisan
+    private final Set<Integer> appliedDuringSync = new HashSet<>();
+    private boolean syncing;
+    private volatile boolean loaded;
+
+    /**
+     * 🔸 Carga inicial de la réplica.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        resync();
+    }
+
+    /**
+     * 🔁 Lleva la réplica al contenido de la tabla: agrega, actualiza y quita talleres según la foto leída.
+     * Los eventos Kafka que llegan durante la lectura tienen prioridad sobre la foto.
+     */
+    @Scheduled(initialDelayString = "${workshop-cache.replica.resync-interval-ms:60000}",
+            fixedDelayString = "${workshop-cache.replica.resync-interval-ms:60000}")
+    public void resync() {
+        synchronized (this) {
+            if (syncing) {
+                return;
+            }
+            syncing = true;
+            appliedDuringSync.clear();
+        }
+        repository.findAll()
+                .collectList()
+                .subscribe(this::applySnapshot, e -> {
+                    synchronized (this) {
+                        syncing = false;
+                    }
+                    log.error("❌ No se pudo sincronizar la réplica de workshop_cache{}",
+                            loaded ? "" : ", se seguirá consultando la base de datos", e);
+                });
+    }
+
+    /**
+     * 🔸 Aplica talleres ya confirmados en la base de datos.
+     */
+    public synchronized void upsertAll(Collection<WorkshopCache> workshops) {
+        workshops.forEach(this::index);
+        if (syncing) {
+            workshops.forEach(workshop -> appliedDuringSync.add(workshop.getId()));
+        }
+    }
+
+    private synchronized void applySnapshot(List<WorkshopCache> workshops) {
+        Set<Integer> present = new HashSet<>();
+        int changed = 0;
+        for (WorkshopCache workshop : workshops) {
+            present.add(workshop.getId());
+            if (!appliedDuringSync.contains(workshop.getId()) && !workshop.equals(byId.get(workshop.getId()))) {
+                index(workshop);
+                changed++;
+            }
+        }
+        for (Integer id : new ArrayList<>(byId.keySet())) {
+            if (!present.contains(id) && !appliedDuringSync.contains(id)) {
+                unindex(byId.remove(id));
+                changed++;
+            }
+        }
+        appliedDuringSync.clear();
+        syncing = false;
+        if (!loaded) {
+            loaded = true;
+            log.info("🧠 Réplica de workshop_cache cargada: {} talleres", byId.size());
+        } else if (changed > 0) {
+            log.info("🔁 Réplica de workshop_cache sincronizada: {} talleres cambiados por otras instancias", changed);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public Mono<WorkshopCache> findById(Integer id) {
+        if (!loaded) {
+            return repository.findById(id);
+        }
+        return Mono.justOrEmpty(byId.get(id));
+    }
+
+    public Mono<Map<Integer, WorkshopCache>> findAllById(Integer[] ids) {
+        if (ids.length == 0) {
+            return Mono.just(Map.of());
+        }
+        if (!loaded) {
+            return repository.findByIdIn(ids).collectMap(WorkshopCache::getId);
+        }
+        Map<Integer, WorkshopCache> found = new HashMap<>();
+        for (Integer id : ids) {
+            WorkshopCache workshop = byId.get(id);
+            if (workshop != null) {
+                found.put(id, workshop);
+            }
+        }
+        return Mono.just(found);
+    }
+
+    /**
+     * 🔸 Cantidad de talleres por status (en mayúsculas); vacío hasta que termina la carga inicial.
+     */
+    public Map<String, Integer> countByStatus() {
+        return new TreeMap<>(statusCounts);
+    }
+
+    /**
+     * 🔸 Lista talleres ordenados por id, con filtro opcional por status (sin distinguir mayúsculas).
+     */
+    public Flux<WorkshopCache> findAll(String status) {
+        if (!loaded) {
+            return status == null ? repository.findAll() : repository.findByStatus(status.toUpperCase());
+        }
+        Collection<Integer> ids = status == null
+                ? byId.keySet()
+                : byStatus.getOrDefault(status.toUpperCase(), Set.of());
+        return Flux.fromIterable(sortedById(ids));
+    }
+
+    /**
+     * 🔸 Talleres que empiezan y terminan dentro del rango indicado (extremos opcionales).
+     */
+    public Flux<WorkshopCache> findByDateRange(LocalDate from, LocalDate to) {
+        if (!loaded) {
+            return repository.findAll().filter(workshop -> inRange(workshop, from, to));
+        }
+        NavigableMap<LocalDate, Set<Integer>> candidates = from == null ? byDateStart : byDateStart.tailMap(from, true);
+        if (to != null) {
+            candidates = candidates.headMap(to, true);
+        }
+        List<Integer> ids = new ArrayList<>();
+        candidates.values().forEach(ids::addAll);
+        return Flux.fromIterable(sortedById(ids)).filter(workshop -> inRange(workshop, from, to));
+    }
+
+    private List<WorkshopCache> sortedById(Collection<Integer> ids) {
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(WorkshopCache::getId))
+                .toList();
+    }
+
+    private static boolean inRange(WorkshopCache workshop, LocalDate from, LocalDate to) {
+        boolean inRange = true;
+        if (from != null) inRange = workshop.getDateStart() != null && !workshop.getDateStart().isBefore(from);
+        if (to != null) inRange = inRange && workshop.getDateEnd() != null && !workshop.getDateEnd().isAfter(to);
+        return inRange;
+    }
+
+    private void index(WorkshopCache workshop) {
+        WorkshopCache copy = workshop.toBuilder().build();
+        WorkshopCache previous = byId.put(copy.getId(), copy);
+        if (previous != null) {
+            unindex(previous);
+        }
+        byStatus.computeIfAbsent(statusKey(copy), k -> new ConcurrentSkipListSet<>()).add(copy.getId());
+        statusCounts.merge(statusKey(copy), 1, Integer::sum);
+        if (copy.getDateStart() != null) {
+            byDateStart.computeIfAbsent(copy.getDateStart(), k -> new ConcurrentSkipListSet<>()).add(copy.getId());
+        }
+    }
+
+    private void unindex(WorkshopCache workshop) {
+        removeFromIndex(byStatus, statusKey(workshop), workshop.getId());
+        statusCounts.computeIfPresent(statusKey(workshop), (k, count) -> count > 1 ? count - 1 : null);
+        if (workshop.getDateStart() != null) {
+            removeFromIndex(byDateStart, workshop.getDateStart(), workshop.getId());
+        }
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<Integer>> index, K key, Integer id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static String statusKey(WorkshopCache workshop) {
+        return workshop.getStatus() == null ? "" : workshop.getStatus().toUpperCase();
+    }
+}
@@ -0,0 +1,55 @@
+package pe.edu.vallegrande.report_workshop_service.webclient;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 🔹 Perfiles de conexión HTTP por destino (http-clients.&lt;nombre&gt;).
+ * Cada perfil tiene su propio pool de conexiones, con límites y timeouts independientes.
+ */
+@Data
+@ConfigurationProperties(prefix = "http-clients")
+public class HttpClientProperties {
+
+    private Map<String, Profile> profiles = new HashMap<>();
+
+    public Profile profile(String name) {
+        return profiles.getOrDefault(name, new Profile());
+    }
+
+    @Data
+    public static class Profile {
+        // Conexiones simultáneas por host y pedidos que pueden esperar una conexión libre
+        private int maxConnections = 50;
+        private int pendingAcquireMaxCount = 200;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        private Duration connectTimeout = Duration.ofSeconds(3);
+        // Tiempo máximo entre lecturas de la respuesta; evita pedidos colgados para siempre
+        private Duration responseTimeout = Duration.ofSeconds(15);
+
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+
+        private boolean keepAlive = true;
+        private boolean compress = true;
+        // Solo se usa con https (negociación ALPN); con http se queda en HTTP/1.1
+        private boolean http2 = true;
+
+        // Hedging de GETs idempotentes (ver OutboundCallPolicy)
+        private boolean hedge = true;
+        private Duration hedgeMinDelay = Duration.ofMillis(50);
+        private int hedgeMinSamples = 20;
+
+        // Límite de concurrencia adaptativo (AIMD)
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 200;
+        private double backoffRatio = 0.9;
+    }
+}
@@ -0,0 +1,241 @@
+package pe.edu.vallegrande.report_workshop_service.webclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 🔹 Política de llamadas salientes hacia un servicio externo.
+ * <ul>
+ *   <li>Límite de concurrencia adaptativo (AIMD): sube de a poco con cada respuesta correcta y se reduce
+ *   multiplicativamente ante timeouts, errores de conexión, 5xx o 429. Si el límite está lleno,
+ *   el pedido se rechaza con {@link UpstreamOverloadedException} en vez de encolarse.</li>
+ *   <li>Hedging para GETs idempotentes: si la respuesta tarda más que el p95 reciente,
+ *   se envía un segundo pedido y se usa el primero que responda.</li>
+ *   <li>Métricas: {@code outbound.call.duration} por cliente, operación, outcome y status (cada pedido,
+ *   incluidos los hedges), {@code outbound.call.rejected} y los gauges del límite y de los pedidos en vuelo.
+ *   Las operaciones son nombres fijos (p. ej. "findById"), nunca URLs, para mantener baja la cardinalidad.</li>
+ * </ul>
+ */
+@Slf4j
+public class OutboundCallPolicy {
+
+    private static final int SAMPLE_WINDOW = 256;
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    private final String name;
+    private final HttpClientProperties.Profile profile;
+    private final MeterRegistry meterRegistry;
+
+    // Últimas latencias correctas (ns), en un buffer circular protegido por su propio monitor
+    private final long[] samples = new long[SAMPLE_WINDOW];
+    private long recorded;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    public OutboundCallPolicy(String name, HttpClientProperties.Profile profile, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.profile = profile;
+        this.meterRegistry = meterRegistry;
+        this.limit = profile.getInitialLimit();
+
+        Gauge.builder("outbound.concurrency.limit", this, OutboundCallPolicy::currentLimit)
+                .description("Límite de concurrencia adaptativo hacia el servicio externo")
+                .tag("client", name)
+                .register(meterRegistry);
+        Gauge.builder("outbound.concurrency.in-flight", inFlight, AtomicInteger::get)
+                .description("Pedidos en vuelo hacia el servicio externo")
+                .tag("client", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🔸 Ejecuta la llamada dentro del límite de concurrencia (sin hedging; para escrituras o cuerpos no repetibles).
+     */
+    public <T> Mono<T> limited(String operation, Mono<T> call) {
+        return Mono.defer(() -> tryAcquire() ? track(operation, call) : rejected(operation));
+    }
+
+    /**
+     * 🔸 Ejecuta un GET idempotente con hedging. {@code call} debe ser frío: cada suscripción envía un pedido nuevo.
+     */
+    public <T> Mono<T> hedged(String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return rejected(operation);
+            }
+            Mono<T> primary = track(operation, call);
+            Duration delay = hedgeDelay();
+            if (delay == null) {
+                return primary;
+            }
+            // El segundo pedido solo sale si todavía hay lugar en el límite
+            Mono<T> hedge = Mono.delay(delay).flatMap(tick -> tryAcquire() ? track(operation, call) : Mono.<T>never());
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    /**
+     * 🔸 Solo mide una respuesta en streaming (fuera del límite de concurrencia, que trabaja sobre Mono).
+     * La duración va hasta que termina el cuerpo.
+     */
+    public <T> Flux<T> timed(String operation, Flux<T> call) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnComplete(() -> record(operation, "SUCCESS", "2xx", System.nanoTime() - start))
+                    .doOnError(e -> record(operation, outcome(e), status(e), System.nanoTime() - start))
+                    .doOnCancel(() -> record(operation, "CANCELLED", "none", System.nanoTime() - start));
+        });
+    }
+
+    public int currentLimit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private <T> Mono<T> rejected(String operation) {
+        Counter.builder("outbound.call.rejected")
+                .description("Pedidos rechazados por el límite de concurrencia")
+                .tag("client", name)
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment();
+        return Mono.error(new UpstreamOverloadedException(name));
+    }
+
+    private <T> Mono<T> track(String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean released = new AtomicBoolean();
+            return call
+                    .doOnSuccess(value -> {
+                        if (released.compareAndSet(false, true)) {
+                            long latency = System.nanoTime() - start;
+                            record(operation, "SUCCESS", "2xx", latency);
+                            onSuccess(latency);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (released.compareAndSet(false, true)) {
+                            record(operation, outcome(e), status(e), System.nanoTime() - start);
+                            onError(e);
+                        }
+                    })
+                    // El pedido que pierde la carrera del hedging se cancela: solo libera su lugar
+                    .doOnCancel(() -> {
+                        if (released.compareAndSet(false, true)) {
+                            record(operation, "CANCELLED", "none", System.nanoTime() - start);
+                            inFlight.decrementAndGet();
+                        }
+                    });
+        });
+    }
+
+    private void record(String operation, String outcome, String status, long latencyNanos) {
+        Timer.builder("outbound.call.duration")
+                .description("Duración de las llamadas salientes por operación")
+                .tag("client", name)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() ? "SERVER_ERROR" : "CLIENT_ERROR";
+        }
+        if (e instanceof TimeoutException || e.getCause() instanceof TimeoutException) {
+            return "TIMEOUT";
+        }
+        return e instanceof WebClientRequestException ? "IO_ERROR" : "UNKNOWN";
+    }
+
+    /**
+     * 🔸 Código HTTP de la respuesta de error; "none" si no hubo respuesta (timeout, conexión).
+     */
+    private static String status(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return String.valueOf(response.getStatusCode().value());
+        }
+        return "none";
+    }
+
+    private void onSuccess(long latencyNanos) {
+        inFlight.decrementAndGet();
+        synchronized (samples) {
+            samples[(int) (recorded++ % SAMPLE_WINDOW)] = latencyNanos;
+            // ➕ Aumento aditivo: aprox. +1 cuando todo el límite respondió bien
+            limit = Math.min(profile.getMaxLimit(), limit + 1.0 / limit);
+        }
+    }
+
+    private void onError(Throwable e) {
+        inFlight.decrementAndGet();
+        if (isCongestion(e)) {
+            synchronized (samples) {
+                // ➗ Reducción multiplicativa ante señales de saturación
+                limit = Math.max(profile.getMinLimit(), limit * profile.getBackoffRatio());
+            }
+            log.debug("⚠️ {} respondió con error, límite de concurrencia reducido a {}", name, (int) limit);
+        }
+    }
+
+    private static boolean isCongestion(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return true;
+    }
+
+    /**
+     * 🔸 Demora del hedge: p95 de las últimas latencias (con un mínimo). Null si no hay muestras suficientes.
+     */
+    private Duration hedgeDelay() {
+        if (!profile.isHedge()) {
+            return null;
+        }
+        long[] window;
+        synchronized (samples) {
+            int count = (int) Math.min(recorded, SAMPLE_WINDOW);
+            if (count < profile.getHedgeMinSamples()) {
+                return null;
+            }
+            window = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(window);
+        long p95 = window[(int) Math.ceil(HEDGE_PERCENTILE * window.length) - 1];
+        return Duration.ofNanos(Math.max(p95, profile.getHedgeMinDelay().toNanos()));
+    }
+}
@@ -0,0 +1,107 @@
+package pe.edu.vallegrande.report_workshop_service.webclient;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 🔹 Agrupa las lecturas de reportes por ID que llegan casi al mismo tiempo (estilo DataLoader).
+ * Durante una ventana corta, o hasta juntar max-keys IDs, se acumulan los pedidos sin repetir IDs
+ * y se resuelven con una sola llamada {@link ReportCoreClient#findAllById}; cada suscriptor recibe su reporte.
+ * Los lotes se separan por JWT, porque la llamada al core se hace con el token de quienes esperan.
+ */
+@Slf4j
+@Component
+public class ReportBatchLoader {
+
+    private final ReportCoreClient reportClient;
+    private final Duration window;
+    private final int maxKeys;
+
+    private final Map<String, Batch> pending = new ConcurrentHashMap<>();
+
+    public ReportBatchLoader(ReportCoreClient reportClient,
+                             @Value("${core-service.batch.window-ms:5}") long windowMs,
+                             @Value("${core-service.batch.max-keys:50}") int maxKeys) {
+        this.reportClient = reportClient;
+        this.window = Duration.ofMillis(windowMs);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 🔸 Reporte por ID; vacío si el core no lo tiene.
+     */
+    public Mono<ReportDto> load(Integer id) {
+        return Mono.deferContextual(ctx -> {
+            String scope = ctx.getOrDefault("Authorization", "");
+            Batch full = null;
+            Mono<ReportDto> result;
+
+            synchronized (pending) {
+                Batch batch = pending.computeIfAbsent(scope, key -> open(key, ctx));
+                result = batch.sinks.computeIfAbsent(id, key -> Sinks.one()).asMono();
+                if (batch.sinks.size() >= maxKeys) {
+                    pending.remove(scope);
+                    full = batch;
+                }
+            }
+            if (full != null) {
+                dispatch(full);
+            }
+            return result;
+        });
+    }
+
+    private Batch open(String scope, ContextView ctx) {
+        Batch batch = new Batch(Context.of(ctx));
+        Mono.delay(window).subscribe(tick -> {
+            synchronized (pending) {
+                pending.remove(scope, batch);
+            }
+            dispatch(batch);
+        });
+        return batch;
+    }
+
+    private void dispatch(Batch batch) {
+        if (!batch.dispatched.compareAndSet(false, true)) {
+            return;
+        }
+        Map<Integer, Sinks.One<ReportDto>> sinks;
+        synchronized (pending) {
+            sinks = new HashMap<>(batch.sinks);
+        }
+
+        reportClient.findAllById(List.copyOf(sinks.keySet()))
+                .contextWrite(batch.context)
+                .subscribe(report -> {
+                    Sinks.One<ReportDto> sink = sinks.remove(report.getId());
+                    if (sink != null) sink.tryEmitValue(report);
+                }, e -> {
+                    log.warn("⚠️ Falló la lectura en lote de {} reportes: {}", sinks.size(), e.getMessage());
+                    sinks.values().forEach(sink -> sink.tryEmitError(e));
+                }, () -> sinks.values().forEach(Sinks.One::tryEmitEmpty));
+    }
+
+    private static final class Batch {
+        private final ContextView context;
+        private final Map<Integer, Sinks.One<ReportDto>> sinks = new HashMap<>();
+        private final AtomicBoolean dispatched = new AtomicBoolean();
+
+        private Batch(ContextView context) {
+            this.context = context;
+        }
+    }
+}
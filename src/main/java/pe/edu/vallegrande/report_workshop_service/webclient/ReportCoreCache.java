@@ -0,0 +1,159 @@
+package pe.edu.vallegrande.report_workshop_service.webclient;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 🔹 Caché de lecturas del core de reportes (TTL + stale-while-revalidate).
+ * Mientras una entrada es fresca se responde sin llamar al core; pasada la TTL se sigue respondiendo
+ * con el valor anterior y se revalida en segundo plano con If-None-Match; después de max-stale se descarta.
+ * Las entradas se separan por usuario (hash del JWT) salvo que se configure el core como compartido.
+ * Los pedidos simultáneos de una misma clave sin entrada comparten una única llamada al core,
+ * salvo que entre ellos haya una invalidación: quien llega después no se suma a una lectura anterior a la escritura.
+ */
+@Slf4j
+@Component
+public class ReportCoreCache {
+
+    private static final String SHARED_SCOPE = "shared";
+    private static final String ANONYMOUS_SCOPE = "anonymous";
+
+    private final Cache<Key, Entry<?>> entries;
+    private final Set<Key> revalidating = ConcurrentHashMap.newKeySet();
+    // Lecturas en curso por clave ausente y generación: los pedidos concurrentes se suscriben a la misma
+    private final Map<InFlightKey, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    // Se incrementa en cada invalidación para descartar lecturas y revalidaciones iniciadas antes de una escritura
+    private final AtomicLong generation = new AtomicLong();
+    private final Duration ttl;
+    private final boolean sharedAcrossUsers;
+
+    public ReportCoreCache(@Value("${core-service.cache.max-size:1000}") long maxSize,
+                           @Value("${core-service.cache.ttl-seconds:30}") long ttlSeconds,
+                           @Value("${core-service.cache.max-stale-seconds:600}") long maxStaleSeconds,
+                           @Value("${core-service.cache.shared-across-users:false}") boolean sharedAcrossUsers) {
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.sharedAcrossUsers = sharedAcrossUsers;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(ttlSeconds, maxStaleSeconds)))
+                .build();
+    }
+
+    /**
+     * 🔸 Devuelve el recurso desde la caché o lo obtiene con {@code fetcher}, que recibe el ETag anterior (o null).
+     * Un Mono vacío del fetcher significa que el recurso ya no existe y se quita de la caché.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(String resource, Function<String, Mono<Fetched<T>>> fetcher) {
+        return Mono.deferContextual(ctx -> {
+            Key key = new Key(scope(ctx), resource);
+            Entry<T> entry = (Entry<T>) entries.getIfPresent(key);
+
+            if (entry == null) {
+                // 🔒 Single-flight por generación: el primero lanza la lectura y el resto espera su resultado (o su error);
+                // tras una invalidación la generación cambia y el siguiente pedido lanza una lectura nueva
+                InFlightKey flight = new InFlightKey(key, generation.get());
+                return (Mono<T>) inFlight.computeIfAbsent(flight, f -> fetch(key, null, fetcher, f.generation())
+                        .doFinally(signal -> inFlight.remove(f))
+                        .contextWrite(ctx)
+                        .cache());
+            }
+            if (entry.isStale(ttl) && revalidating.add(key)) {
+                // ♻️ Se responde con el valor anterior y se revalida en segundo plano con el mismo contexto (JWT)
+                fetch(key, entry, fetcher, generation.get())
+                        .doFinally(signal -> revalidating.remove(key))
+                        .contextWrite(ctx)
+                        .subscribe(value -> { }, e -> log.warn("⚠️ No se pudo revalidar {} en el core: {}", resource, e.getMessage()));
+            }
+            return Mono.just(entry.value());
+        });
+    }
+
+    /**
+     * 🔸 Quita los recursos indicados para todos los usuarios, incluidas sus variantes con query params.
+     */
+    public void invalidate(String... resources) {
+        Set<String> targets = Set.of(resources);
+        generation.incrementAndGet();
+        entries.asMap().keySet().removeIf(key -> {
+            int query = key.resource().indexOf('?');
+            return targets.contains(query < 0 ? key.resource() : key.resource().substring(0, query));
+        });
+    }
+
+    /**
+     * 🔸 Lee del core y guarda el resultado solo si no hubo invalidaciones desde {@code startedAt}.
+     */
+    private <T> Mono<T> fetch(Key key, Entry<T> previous, Function<String, Mono<Fetched<T>>> fetcher, long startedAt) {
+        return fetcher.apply(previous == null ? null : previous.etag())
+                .map(fetched -> {
+                    Entry<T> entry = fetched.notModified() && previous != null
+                            ? new Entry<>(previous.value(), previous.etag(), System.nanoTime())
+                            : new Entry<>(fetched.value(), fetched.etag(), System.nanoTime());
+                    if (generation.get() == startedAt) {
+                        entries.put(key, entry);
+                    }
+                    return entry.value();
+                })
+                .switchIfEmpty(Mono.fromRunnable(() -> entries.invalidate(key)));
+    }
+
+    private String scope(ContextView ctx) {
+        if (sharedAcrossUsers) {
+            return SHARED_SCOPE;
+        }
+        if (!ctx.hasKey("Authorization")) {
+            return ANONYMOUS_SCOPE;
+        }
+        String token = ctx.get("Authorization");
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 🔸 Resultado de una lectura al core: el valor con su ETag, o "304 Not Modified".
+     */
+    public record Fetched<T>(T value, String etag, boolean notModified) {
+
+        public static <T> Fetched<T> of(T value, String etag) {
+            return new Fetched<>(value, etag, false);
+        }
+
+        public static <T> Fetched<T> notModifiedResponse() {
+            return new Fetched<>(null, null, true);
+        }
+    }
+
+    private record Key(String scope, String resource) {
+    }
+
+    private record InFlightKey(Key key, long generation) {
+    }
+
+    private record Entry<T>(T value, String etag, long fetchedAtNanos) {
+
+        boolean isStale(Duration ttl) {
+            return System.nanoTime() - fetchedAtNanos > ttl.toNanos();
+        }
+    }
+}
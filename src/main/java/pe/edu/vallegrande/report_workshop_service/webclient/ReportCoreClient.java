@@ -1,81 +1,223 @@
 package pe.edu.vallegrande.report_workshop_service.webclient;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
 @Component
 @RequiredArgsConstructor
 public class ReportCoreClient {
 
     private final WebClient coreServiceWebClient;
+    private final ReportCoreCache cache;
+    private final OutboundCallPolicy coreServicePolicy;
 
     private static final String BASE_PATH = "/api/reports";
+    private static final String ALL_REPORTS = "reports";
+
+    // Filtros que el core entiende como query params (vacío hasta confirmar el contrato; igual se filtra localmente)
+    @Value("${core-service.reports.supported-filters:}")
+    private Set<String> supportedFilters = Set.of();
+
+    // Tamaño de página pedido al core (0 = el core no pagina y se pide todo en una sola llamada)
+    @Value("${core-service.reports.page-size:0}")
+    private int pageSize = 0;
+
+    // Endpoint de lectura en lote del core (p. ej. /api/reports/batch); vacío si el core no lo tiene
+    @Value("${core-service.batch.path:}")
+    private String batchPath = "";
+
+    // Llamadas simultáneas a findById cuando no hay endpoint de lote
+    @Value("${core-service.batch.concurrency:8}")
+    private int batchConcurrency = 8;
 
     public Flux<ReportDto> findAll() {
-        return coreServiceWebClient.get()
-                .uri(BASE_PATH)
-                .retrieve()
-                .bodyToFlux(ReportDto.class);
+        return findFiltered(null, null, null);
+    }
+
+    /**
+     * 🔹 Reportes filtrados en el core. Los filtros soportados viajan como query params y las páginas
+     * se piden una tras otra a medida que se consumen. Todos los filtros se vuelven a aplicar aquí:
+     * es barato y evita devolver reportes de más si el core ignora algún parámetro.
+     */
+    public Flux<ReportDto> findFiltered(String status, String trimester, Integer year) {
+        MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+        Predicate<ReportDto> localFilter = r -> true;
+
+        if (status != null) {
+            pushDown(filters, "status", status);
+            localFilter = localFilter.and(r -> status.equalsIgnoreCase(r.getStatus()));
+        }
+        if (trimester != null) {
+            pushDown(filters, "trimester", trimester);
+            localFilter = localFilter.and(r -> trimester.equalsIgnoreCase(r.getTrimester()));
+        }
+        if (year != null) {
+            pushDown(filters, "year", year);
+            localFilter = localFilter.and(r -> year.equals(r.getYear()));
+        }
+        return fetchPages(filters, 0, null).filter(localFilter);
     }
 
     public Mono<ReportDto> findById(Integer id) {
-        return coreServiceWebClient.get()
-                .uri(BASE_PATH + "/{id}", id)
-                .retrieve()
-                .bodyToMono(ReportDto.class)
-                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty());
+        return cache.get(reportResource(id), etag -> conditionalGet("findById", etag,
+                        response -> response.bodyToMono(ReportDto.class),
+                        uriBuilder -> uriBuilder.path(BASE_PATH + "/{id}").build(id))
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty()));
+    }
+
+    /**
+     * 🔹 Varios reportes por ID en una sola llamada al endpoint de lote del core.
+     * Si no está configurado, se hacen llamadas individuales (con caché) limitadas a batch.concurrency.
+     */
+    public Flux<ReportDto> findAllById(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        if (batchPath == null || batchPath.isBlank()) {
+            return Flux.fromIterable(ids).flatMap(this::findById, batchConcurrency);
+        }
+        return coreServicePolicy.hedged("findAllById", coreServiceWebClient.get()
+                        .uri(uriBuilder -> uriBuilder.path(batchPath).queryParam("ids", ids.toArray()).build())
+                        .retrieve()
+                        .bodyToFlux(ReportDto.class)
+                        .collectList())
+                .flatMapIterable(reports -> reports);
     }
 
     public Mono<ReportDto> create(ReportDto dto) {
-        return coreServiceWebClient.post()
+        return coreServicePolicy.limited("create", coreServiceWebClient.post()
                 .uri(BASE_PATH)
                 .bodyValue(dto)
                 .retrieve()
-                .bodyToMono(ReportDto.class);
+                .bodyToMono(ReportDto.class))
+                .doOnSuccess(saved -> cache.invalidate(ALL_REPORTS));
     }
 
     public Mono<ReportDto> update(Integer id, ReportDto dto) {
-        return coreServiceWebClient.put()
+        return coreServicePolicy.limited("update", coreServiceWebClient.put()
                 .uri(BASE_PATH + "/{id}", id)
                 .bodyValue(dto)
                 .retrieve()
-                .bodyToMono(ReportDto.class);
+                .bodyToMono(ReportDto.class))
+                .doOnSuccess(saved -> cache.invalidate(ALL_REPORTS, reportResource(id)));
     }
 
     public Mono<Void> disable(Integer id) {
-        return coreServiceWebClient.put()
+        return coreServicePolicy.limited("disable", coreServiceWebClient.put()
                 .uri(BASE_PATH + "/disable/{id}", id)
                 .retrieve()
-                .bodyToMono(Void.class);
+                .bodyToMono(Void.class))
+                .doOnSuccess(v -> cache.invalidate(ALL_REPORTS, reportResource(id)));
     }
 
     public Mono<Void> restore(Integer id) {
-        return coreServiceWebClient.put()
+        return coreServicePolicy.limited("restore", coreServiceWebClient.put()
                 .uri(BASE_PATH + "/restore/{id}", id)
                 .retrieve()
-                .bodyToMono(Void.class);
+                .bodyToMono(Void.class))
+                .doOnSuccess(v -> cache.invalidate(ALL_REPORTS, reportResource(id)));
     }
 
     public Mono<Void> delete(Integer id) {
-        return coreServiceWebClient.delete()
+        return coreServicePolicy.limited("delete", coreServiceWebClient.delete()
                 .uri(BASE_PATH + "/{id}", id)
                 .retrieve()
-                .bodyToMono(Void.class);
+                .bodyToMono(Void.class))
+                .doOnSuccess(v -> cache.invalidate(ALL_REPORTS, reportResource(id)));
     }
 
     public Mono<Boolean> existsByYearAndTrimester(Integer year, String trimester) {
-        return coreServiceWebClient.get()
+        return coreServicePolicy.hedged("existsByYearAndTrimester", coreServiceWebClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path(BASE_PATH + "/exist")
                         .queryParam("year", year)
                         .queryParam("trimester", trimester)
                         .build())
                 .retrieve()
-                .bodyToMono(Boolean.class);
+                .bodyToMono(Boolean.class));
+    }
+
+    /**
+     * 🔸 Agrega el filtro a los query params si está declarado como soportado por el core.
+     */
+    private void pushDown(MultiValueMap<String, String> filters, String name, Object value) {
+        if (supportedFilters.contains(name)) {
+            filters.add(name, value.toString());
+        }
+    }
+
+    /**
+     * 🔸 Pide la página indicada y encadena la siguiente solo si la actual vino completa.
+     * Si el core ignora la paginación (más filas que el tamaño pedido, o la misma página repetida) se corta ahí.
+     */
+    private Flux<ReportDto> fetchPages(MultiValueMap<String, String> filters, int page, Integer previousFirstId) {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>(filters);
+        if (pageSize > 0) {
+            params.add("page", String.valueOf(page));
+            params.add("size", String.valueOf(pageSize));
+        }
+        String resource = UriComponentsBuilder.fromPath(ALL_REPORTS).queryParams(params).build().toUriString();
+
+        return cache.<List<ReportDto>>get(resource, etag -> conditionalGet("findFiltered", etag,
+                        response -> response.bodyToFlux(ReportDto.class).collectList(),
+                        uriBuilder -> uriBuilder.path(BASE_PATH).queryParams(params).build()))
+                .flatMapMany(reports -> {
+                    Integer firstId = reports.isEmpty() ? null : reports.get(0).getId();
+                    if (page > 0 && firstId != null && firstId.equals(previousFirstId)) {
+                        return Flux.empty();
+                    }
+                    Flux<ReportDto> current = Flux.fromIterable(reports);
+                    if (pageSize <= 0 || reports.size() != pageSize) {
+                        return current;
+                    }
+                    return current.concatWith(Flux.defer(() -> fetchPages(filters, page + 1, firstId)));
+                });
+    }
+
+    private static String reportResource(Integer id) {
+        return ALL_REPORTS + "/" + id;
+    }
+
+    /**
+     * 🔸 GET condicional: envía If-None-Match con el ETag guardado y traduce 304 a "sin cambios".
+     * Al ser idempotente pasa por el hedging de {@link OutboundCallPolicy}.
+     */
+    private <T> Mono<ReportCoreCache.Fetched<T>> conditionalGet(String operation, String etag,
+                                                               Function<ClientResponse, Mono<T>> body,
+                                                               Function<UriBuilder, URI> uri) {
+        return coreServicePolicy.hedged(operation, coreServiceWebClient.get()
+                .uri(uri)
+                .headers(headers -> {
+                    if (etag != null) headers.setIfNoneMatch(etag);
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                        return response.releaseBody().thenReturn(ReportCoreCache.Fetched.<T>notModifiedResponse());
+                    }
+                    if (response.statusCode().isError()) {
+                        return response.createError();
+                    }
+                    String newEtag = response.headers().asHttpHeaders().getETag();
+                    return body.apply(response).map(value -> ReportCoreCache.Fetched.of(value, newEtag));
+                }));
     }
 }
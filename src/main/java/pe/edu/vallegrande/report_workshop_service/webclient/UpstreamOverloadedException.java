@@ -0,0 +1,12 @@
+package pe.edu.vallegrande.report_workshop_service.webclient;
+
+/**
+ * 🔸 Se lanza cuando el límite de concurrencia adaptativo de un servicio externo está lleno:
+ * el pedido se rechaza de inmediato en lugar de quedar encolado.
+ */
+public class UpstreamOverloadedException extends RuntimeException {
+
+    public UpstreamOverloadedException(String upstream) {
+        super("El servicio externo " + upstream + " está saturado, intente nuevamente en unos segundos");
+    }
+}
@@ -1,27 +1,119 @@
 package pe.edu.vallegrande.report_workshop_service.webclient;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
 public class WebClientConfig {
 
     @Value("${core-service.url}")
     private String baseUrl;
 
+    @Value("${supabase.project-url}")
+    private String supabaseUrl;
+
+    @Value("${supabase.api-key}")
+    private String supabaseApiKey;
+
+    /**
+     * 🔸 Todos los clientes parten del WebClient.Builder de Spring Boot, que ya trae la observación
+     * de Micrometer (http.client.requests); la URI se publica como plantilla, nunca con los valores.
+     */
     @Bean
-    public WebClient coreServiceWebClient() {
-        return WebClient.builder()
+    public WebClient coreServiceWebClient(WebClient.Builder builder, HttpClientProperties properties) {
+        return builder
                 .baseUrl(baseUrl)
+                .clientConnector(connector("core-service", baseUrl, properties.profile("core-service")))
                 .filter(authHeaderFilter())  // 👈 Añade filtro para token
                 .build();
     }
 
+    @Bean
+    public WebClient supabaseWebClient(WebClient.Builder builder, HttpClientProperties properties) {
+        return builder
+                .baseUrl(supabaseUrl + "/storage/v1")
+                .clientConnector(connector("supabase", supabaseUrl, properties.profile("supabase")))
+                .defaultHeader("apikey", supabaseApiKey)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + supabaseApiKey)
+                .build();
+    }
+
+    /**
+     * 🔸 Cliente para descargar imágenes de talleres (URLs absolutas, normalmente de Supabase).
+     */
+    @Bean
+    public WebClient imageWebClient(WebClient.Builder builder, HttpClientProperties properties,
+                                    @Value("${pdf.images.max-download-mb:20}") int maxDownloadMb) {
+        return builder
+                .clientConnector(connector("images", supabaseUrl, properties.profile("images")))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxDownloadMb * 1024 * 1024))
+                .build();
+    }
+
+    /**
+     * 🔸 Cliente para leer el HTML de las descripciones de reportes, con tamaño máximo de respuesta.
+     */
+    @Bean
+    public WebClient contentWebClient(WebClient.Builder builder, HttpClientProperties properties,
+                                      @Value("${pdf.description.max-size-kb:512}") int maxSizeKb) {
+        return builder
+                .clientConnector(connector("content", supabaseUrl, properties.profile("content")))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxSizeKb * 1024))
+                .build();
+    }
+
+    @Bean
+    public OutboundCallPolicy coreServicePolicy(HttpClientProperties properties, MeterRegistry meterRegistry) {
+        return new OutboundCallPolicy("core-service", properties.profile("core-service"), meterRegistry);
+    }
+
+    @Bean
+    public OutboundCallPolicy supabasePolicy(HttpClientProperties properties, MeterRegistry meterRegistry) {
+        return new OutboundCallPolicy("supabase", properties.profile("supabase"), meterRegistry);
+    }
+
+    /**
+     * 🔸 Conector con pool propio por destino. El pool publica métricas en Micrometer
+     * (reactor.netty.connection.provider.*: conexiones activas, ociosas y adquisiciones pendientes).
+     */
+    private ReactorClientHttpConnector connector(String name, String url, HttpClientProperties.Profile profile) {
+        ConnectionProvider provider = ConnectionProvider.builder(name)
+                .maxConnections(profile.getMaxConnections())
+                .pendingAcquireMaxCount(profile.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(profile.getPendingAcquireTimeout())
+                .maxIdleTime(profile.getMaxIdleTime())
+                .maxLifeTime(profile.getMaxLifeTime())
+                .evictInBackground(profile.getEvictInBackground())
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) profile.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, profile.isKeepAlive())
+                .keepAlive(profile.isKeepAlive())
+                .responseTimeout(profile.getResponseTimeout())
+                .compress(profile.isCompress());
+
+        if (profile.isHttp2() && url.startsWith("https")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
     private ExchangeFilterFunction authHeaderFilter() {
         return (request, next) -> Mono.deferContextual(ctx -> {
             if (ctx.hasKey("Authorization")) {
@@ -0,0 +1,46 @@
+-- Todas las sentencias son idempotentes: se ejecutan en cada arranque y un error detiene el inicio.
+
+-- Listado paginado de /api/workshop-cache (keyset por id): con status (guardado en mayúsculas por el consumidor Kafka)
+-- el índice entrega las filas ya ordenadas por id; los filtros de fechas solos recorren la clave primaria en orden
+CREATE INDEX IF NOT EXISTS idx_workshop_cache_status_id ON workshop_cache (status, id);
+-- (date_start, id) no sirve al ORDER BY id con un rango de fechas: se quita donde ya se había creado
+DROP INDEX IF EXISTS idx_workshop_cache_date_start_id;
+
+-- Trabajos de exportación de PDF en segundo plano (POST /api/reports-workshop/{id}/pdf-jobs)
+CREATE TABLE IF NOT EXISTS pdf_jobs (
+    id UUID PRIMARY KEY,
+    report_id INTEGER NOT NULL,
+    workshop_date_start DATE,
+    workshop_date_end DATE,
+    file_name VARCHAR(255) NOT NULL,
+    report_snapshot TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    error TEXT,
+    locked_until TIMESTAMP,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT now(),
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+-- Reintentos con espera (para tablas creadas antes de la columna)
+ALTER TABLE pdf_jobs ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP NOT NULL DEFAULT now();
+-- Un solo trabajo activo por PDF (reporte + rango de fechas)
+CREATE UNIQUE INDEX IF NOT EXISTS uq_pdf_jobs_active_file_name ON pdf_jobs (file_name) WHERE status IN ('PENDING', 'RUNNING');
+CREATE INDEX IF NOT EXISTS idx_pdf_jobs_status_created_at ON pdf_jobs (status, created_at);
+
+-- Datos de cada reporte usados por /stats, para calcular las estadísticas en SQL sin llamar al core
+CREATE TABLE IF NOT EXISTS report_meta (
+    report_id INTEGER PRIMARY KEY,
+    year INTEGER,
+    trimester VARCHAR(50),
+    status VARCHAR(20),
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Versión de los PDFs de cada reporte: va en el nombre de las copias guardadas (caché local y Supabase),
+-- así una edición en un nodo deja sin efecto las copias viejas de todos los nodos
+CREATE TABLE IF NOT EXISTS report_pdf_versions (
+    report_id INTEGER PRIMARY KEY,
+    version BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
@@ -0,0 +1,105 @@
+package pe.edu.vallegrande.report_workshop_service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.support.Acknowledgment;
+import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
+import pe.edu.vallegrande.report_workshop_service.repository.ReportWorkshopRepository;
+import pe.edu.vallegrande.report_workshop_service.repository.WorkshopCacheRepository;
+import pe.edu.vallegrande.report_workshop_service.service.ReportChangedEvent;
+import pe.edu.vallegrande.report_workshop_service.service.WorkshopCacheStore;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaConsumerServiceTest {
+
+    @Mock
+    private WorkshopCacheRepository cacheRepository;
+
+    @Mock
+    private ReportWorkshopRepository reportWorkshopRepository;
+
+    @Mock
+    private WorkshopCacheStore workshopCacheStore;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private KafkaConsumerService consumer;
+
+    @BeforeEach
+    void setup() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        consumer = new KafkaConsumerService(cacheRepository, objectMapper, reportWorkshopRepository, workshopCacheStore, eventPublisher);
+    }
+
+    /**
+     * ✅ Un lote con eventos repetidos del mismo taller se aplica con un solo upsert,
+     * dejando el evento de mayor offset, y recién después se confirma el offset.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void consumeWorkshopEvents_shouldCollapseDuplicatesAndAckAfterWrite() {
+        when(cacheRepository.upsertAll(anyList())).thenReturn(Mono.just(2L));
+        when(reportWorkshopRepository.findReportIdsByWorkshopIdIn(any())).thenReturn(Flux.just(9));
+
+        consumer.consumeWorkshopEvents(List.of(
+                record(0, "{\"id\":1,\"name\":\"Pintura\",\"startDate\":\"2024-04-01\",\"endDate\":\"2024-04-02\",\"state\":\"A\"}"),
+                record(1, "{\"id\":2,\"name\":\"Danza\",\"state\":\"a\"}"),
+                record(2, "no es json"),
+                record(3, "{\"id\":1,\"name\":\"Pintura avanzada\",\"state\":\"I\"}")
+        ), ack);
+
+        ArgumentCaptor<List<WorkshopCache>> captor = ArgumentCaptor.forClass(List.class);
+        var inOrder = inOrder(cacheRepository, ack, workshopCacheStore);
+        inOrder.verify(cacheRepository).upsertAll(captor.capture());
+        inOrder.verify(ack).acknowledge();
+        inOrder.verify(workshopCacheStore).upsertAll(anyList());
+
+        List<WorkshopCache> written = captor.getValue();
+        assertEquals(2, written.size());
+        assertEquals("Pintura avanzada", written.get(0).getName());
+        assertEquals("I", written.get(0).getStatus());
+        // 🔸 El status se guarda en mayúsculas para que el filtro por status use el índice sin UPPER()
+        assertEquals("A", written.get(1).getStatus());
+        // 🔸 Las copias guardadas del PDF no se tocan: solo se avisa a un pre-render pendiente del reporte
+        verify(eventPublisher).publishEvent(new ReportChangedEvent(9, null));
+    }
+
+    /**
+     * ✅ Si la escritura falla, el offset no se confirma para que el lote se vuelva a entregar.
+     */
+    @Test
+    void consumeWorkshopEvents_shouldNotAckWhenWriteFails() {
+        when(cacheRepository.upsertAll(anyList())).thenReturn(Mono.error(new IllegalStateException("db caída")));
+
+        assertThrows(IllegalStateException.class, () -> consumer.consumeWorkshopEvents(List.of(
+                record(0, "{\"id\":1,\"name\":\"Pintura\",\"state\":\"A\"}")
+        ), ack));
+
+        verify(ack, never()).acknowledge();
+        verifyNoInteractions(workshopCacheStore);
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String value) {
+        return new ConsumerRecord<>("workshop-events", 0, offset, null, value);
+    }
+}
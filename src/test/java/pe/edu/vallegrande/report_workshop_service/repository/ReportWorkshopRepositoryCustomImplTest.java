@@ -0,0 +1,200 @@
+package pe.edu.vallegrande.report_workshop_service.repository;
+
+import io.r2dbc.spi.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.binding.BindMarkersFactory;
+import pe.edu.vallegrande.report_workshop_service.model.ReportWorkshop;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ✅ Pruebas de insertAll sobre un driver R2DBC simulado: se verifica el SQL generado por bloque,
+ * los parámetros enlazados (image_urls como un único text[]) y que los ids de RETURNING vuelvan en orden.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReportWorkshopRepositoryCustomImplTest {
+
+    private static final int CHUNK_SIZE = 3;
+    private static final int PARAMS_PER_ROW = 7;
+    private static final int IMAGE_URLS_PARAM = 6;
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private R2dbcConverter converter;
+
+    // SQL y sentencia simulada de cada bloque enviado, en orden
+    private final List<String> sqls = new ArrayList<>();
+    private final List<Statement> statements = new ArrayList<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private ReportWorkshopRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(Mono.just(connection)).when(connectionFactory).create();
+        doReturn(Mono.empty()).when(connection).close();
+        when(connection.createStatement(anyString())).thenAnswer(inv -> statement(inv.getArgument(0)));
+        when(converter.read(eq(ReportWorkshop.class), any(Row.class), any()))
+                .thenAnswer(inv -> ReportWorkshop.builder().id(inv.<Row>getArgument(1).get("id", Integer.class)).build());
+
+        DatabaseClient databaseClient = DatabaseClient.builder()
+                .connectionFactory(connectionFactory)
+                .bindMarkers(BindMarkersFactory.indexed("$", 1))
+                .build();
+        repository = new ReportWorkshopRepositoryCustomImpl(databaseClient, converter, CHUNK_SIZE);
+    }
+
+    /**
+     * ✅ Exactamente chunk-size filas van en una sola sentencia con chunk-size tuplas.
+     */
+    @Test
+    void insertAll_exactlyChunkSize_shouldSendOneStatement() {
+        StepVerifier.create(repository.insertAll(rows(CHUNK_SIZE)).map(ReportWorkshop::getId))
+                .expectNext(1, 2, 3)
+                .verifyComplete();
+
+        assertEquals(1, sqls.size());
+        assertEquals(CHUNK_SIZE, tuples(sqls.get(0)));
+        assertTrue(sqls.get(0).endsWith(" RETURNING *"));
+    }
+
+    /**
+     * ✅ chunk-size + 1 filas se parten en dos sentencias (chunk-size y 1) y los ids vuelven en el orden recibido.
+     */
+    @Test
+    void insertAll_chunkSizePlusOne_shouldSplitAndKeepOrder() {
+        StepVerifier.create(repository.insertAll(rows(CHUNK_SIZE + 1)).map(ReportWorkshop::getId))
+                .expectNext(1, 2, 3, 4)
+                .verifyComplete();
+
+        assertEquals(2, sqls.size());
+        assertEquals(CHUNK_SIZE, tuples(sqls.get(0)));
+        assertEquals(1, tuples(sqls.get(1)));
+        // 🔸 Los parámetros del segundo bloque vuelven a empezar en $1
+        assertTrue(sqls.get(1).contains("($1, $2, $3, $4, $5, $6, $7)"));
+        assertEquals(10, bound(statements.get(1)).get(0).getValue());
+    }
+
+    /**
+     * ✅ image_urls se enlaza como un único parámetro text[]: un arreglo con datos o vacío se pasa tal cual
+     * y un valor nulo se envía como nulo tipado String[].
+     */
+    @Test
+    void insertAll_shouldBindImageUrlsAsSingleArray() {
+        String[] images = {"https://example.com/a.jpg", "https://example.com/b.jpg"};
+        String[] empty = {};
+        List<ReportWorkshop> batch = List.of(
+                row(10, images),
+                row(10, empty),
+                row(10, null));
+
+        StepVerifier.create(repository.insertAll(batch))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        Map<Integer, Parameter> params = bound(statements.get(0));
+        assertSame(images, params.get(IMAGE_URLS_PARAM).getValue());
+        assertSame(empty, params.get(PARAMS_PER_ROW + IMAGE_URLS_PARAM).getValue());
+        Parameter nullImages = params.get(2 * PARAMS_PER_ROW + IMAGE_URLS_PARAM);
+        assertNull(nullImages.getValue());
+        assertEquals(String[].class, nullImages.getType().getJavaType());
+        // 🔸 El arreglo no se expande en varios parámetros: 7 por fila
+        assertEquals(3 * PARAMS_PER_ROW, sqls.get(0).split("\\$").length - 1);
+    }
+
+    /**
+     * ✅ Una lista vacía no envía ninguna sentencia.
+     */
+    @Test
+    void insertAll_empty_shouldNotTouchDatabase() {
+        StepVerifier.create(repository.insertAll(List.of()))
+                .verifyComplete();
+
+        verifyNoInteractions(connectionFactory);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Statement statement(String sql) {
+        sqls.add(sql);
+        Statement statement = mock(Statement.class);
+        when(statement.bind(anyInt(), any())).thenReturn(statement);
+        when(statement.bindNull(anyInt(), any())).thenReturn(statement);
+        int count = tuples(sql);
+
+        Result result = mock(Result.class);
+        when(result.map(any(BiFunction.class))).thenAnswer(inv -> {
+            BiFunction<Row, RowMetadata, ?> mapper = inv.getArgument(0);
+            // 🔸 RETURNING devuelve una fila por tupla con el id generado
+            return Flux.range(0, count).map(i -> mapper.apply(returnedRow(nextId.getAndIncrement()), mock(RowMetadata.class)));
+        });
+        doReturn(Flux.just(result)).when(statement).execute();
+        statements.add(statement);
+        return statement;
+    }
+
+    /**
+     * 🔸 Parámetros enlazados por posición; DatabaseClient envuelve cada valor (también los nulos) en un {@link Parameter}.
+     */
+    private static Map<Integer, Parameter> bound(Statement statement) {
+        ArgumentCaptor<Integer> indexes = ArgumentCaptor.forClass(Integer.class);
+        ArgumentCaptor<Object> values = ArgumentCaptor.forClass(Object.class);
+        verify(statement, atLeastOnce()).bind(indexes.capture(), values.capture());
+        Map<Integer, Parameter> params = new HashMap<>();
+        for (int i = 0; i < indexes.getAllValues().size(); i++) {
+            params.put(indexes.getAllValues().get(i), (Parameter) values.getAllValues().get(i));
+        }
+        return params;
+    }
+
+    private static Row returnedRow(int id) {
+        Row row = mock(Row.class);
+        when(row.get("id", Integer.class)).thenReturn(id);
+        return row;
+    }
+
+    private static int tuples(String sql) {
+        return sql.split("\\(\\$").length - 1;
+    }
+
+    private static List<ReportWorkshop> rows(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> row(10, new String[] {"https://example.com/" + i + ".jpg"}))
+                .toList();
+    }
+
+    private static ReportWorkshop row(int reportId, String[] imageUrls) {
+        return ReportWorkshop.builder()
+                .reportId(reportId)
+                .workshopName("Taller")
+                .imageUrl(imageUrls)
+                .build();
+    }
+}
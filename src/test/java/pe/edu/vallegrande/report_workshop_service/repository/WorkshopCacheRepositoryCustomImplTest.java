@@ -0,0 +1,194 @@
+package pe.edu.vallegrande.report_workshop_service.repository;
+
+import io.r2dbc.spi.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.r2dbc.core.DatabaseClient;
+import pe.edu.vallegrande.report_workshop_service.dto.WorkshopCachePageDto;
+import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
+import pe.edu.vallegrande.report_workshop_service.service.WorkshopCacheService;
+import pe.edu.vallegrande.report_workshop_service.service.WorkshopCacheStore;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ✅ Pruebas de findPage sobre un driver R2DBC simulado: se verifica el WHERE armado con cada combinación
+ * de filtros, el keyset (id > after, ORDER BY id, LIMIT) y el corte de páginas hasta la última vacía.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class WorkshopCacheRepositoryCustomImplTest {
+
+    private static final LocalDate FROM = LocalDate.of(2024, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 6, 30);
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private WorkshopCacheRepository repositoryFacade;
+
+    @Mock
+    private WorkshopCacheStore store;
+
+    // SQL y sentencia simulada de cada consulta enviada, y filas que devolverá cada una, en orden
+    private final List<String> sqls = new ArrayList<>();
+    private final List<Statement> statements = new ArrayList<>();
+    private final Deque<List<WorkshopCache>> results = new ArrayDeque<>();
+
+    private WorkshopCacheRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(Mono.just(connection)).when(connectionFactory).create();
+        doReturn(Mono.empty()).when(connection).close();
+        when(connection.createStatement(anyString())).thenAnswer(inv -> statement(inv.getArgument(0)));
+
+        DatabaseClient databaseClient = DatabaseClient.builder()
+                .connectionFactory(connectionFactory)
+                .bindMarkers(PostgresDialect.INSTANCE.getBindMarkersFactory())
+                .build();
+        repository = new WorkshopCacheRepositoryCustomImpl(databaseClient, new R2dbcEntityTemplate(databaseClient, PostgresDialect.INSTANCE));
+    }
+
+    /**
+     * ✅ Cada combinación de filtros agrega al WHERE solo las condiciones presentes, con status en mayúsculas,
+     * y siempre ordena por id con el límite pedido.
+     */
+    @Test
+    void findPage_eachFilterCombination_shouldOnlyAddPresentConditions() {
+        for (String status : Arrays.asList(null, "a")) {
+            for (LocalDate from : Arrays.asList(null, FROM)) {
+                for (LocalDate to : Arrays.asList(null, TO)) {
+                    StepVerifier.create(repository.findPage(status, from, to, null, 10)).verifyComplete();
+
+                    String sql = sqls.get(sqls.size() - 1);
+                    String combination = status + " / " + from + " / " + to;
+                    assertEquals(status != null, sql.contains(".status = $"), combination);
+                    assertEquals(from != null, sql.contains(".date_start >= $"), combination);
+                    assertEquals(to != null, sql.contains(".date_end <= $"), combination);
+                    assertFalse(sql.contains(".id > $"), combination);
+                    assertEquals(status == null && from == null && to == null, !sql.contains("WHERE"), combination);
+                    assertTrue(sql.matches(".*ORDER BY .*id ASC.*LIMIT 10.*"), sql);
+
+                    List<Object> values = bound(statements.get(statements.size() - 1));
+                    assertEquals(status != null, values.contains("A"), combination);
+                    assertEquals(from != null, values.contains(FROM), combination);
+                    assertEquals(to != null, values.contains(TO), combination);
+                }
+            }
+        }
+        assertEquals(8, sqls.size());
+    }
+
+    /**
+     * ✅ Recorre las páginas con el servicio: la fila extra marca el corte y su id anterior es el cursor,
+     * la página siguiente continúa con id > cursor y una última página vacía no devuelve cursor.
+     */
+    @Test
+    void findPage_pageBoundaryAndEmptyLastPage_shouldFollowKeyset() {
+        when(repositoryFacade.findPage(any(), any(), any(), any(), anyInt())).thenAnswer(inv ->
+                repository.findPage(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2), inv.getArgument(3), inv.getArgument(4)));
+        WorkshopCacheService service = new WorkshopCacheService(store, repositoryFacade);
+
+        // 🔸 Página de 2 con 3 filas disponibles: sobra una, así que hay página siguiente desde el id 2
+        results.add(List.of(workshop(1), workshop(2), workshop(3)));
+        WorkshopCachePageDto first = service.findPage("A", null, null, null, 2).block();
+        assertEquals(List.of(1, 2), first.getItems().stream().map(WorkshopCache::getId).toList());
+        assertEquals(2, first.getNextCursor());
+        assertTrue(sqls.get(0).contains("LIMIT 3"));
+
+        // 🔸 Justo en el borde: exactamente 2 filas, sin cursor siguiente
+        results.add(List.of(workshop(3), workshop(4)));
+        WorkshopCachePageDto second = service.findPage("A", null, null, first.getNextCursor(), 2).block();
+        assertEquals(List.of(3, 4), second.getItems().stream().map(WorkshopCache::getId).toList());
+        assertNull(second.getNextCursor());
+        assertTrue(sqls.get(1).contains(".id > $"));
+        assertTrue(bound(statements.get(1)).contains(2));
+
+        // 🔸 Cursor después de la última fila: página vacía y sin cursor
+        WorkshopCachePageDto last = service.findPage("A", null, null, 4, 2).block();
+        assertTrue(last.getItems().isEmpty());
+        assertNull(last.getNextCursor());
+        assertTrue(bound(statements.get(2)).contains(4));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Statement statement(String sql) {
+        sqls.add(sql);
+        Statement statement = mock(Statement.class);
+        when(statement.bind(anyInt(), any())).thenReturn(statement);
+        when(statement.bind(anyString(), any())).thenReturn(statement);
+        List<WorkshopCache> rows = results.isEmpty() ? List.of() : results.poll();
+
+        Result result = mock(Result.class);
+        when(result.map(any(BiFunction.class))).thenAnswer(inv -> {
+            BiFunction<Row, RowMetadata, ?> mapper = inv.getArgument(0);
+            return Flux.fromIterable(rows).map(workshop -> mapper.apply(row(workshop), metadata()));
+        });
+        doReturn(Flux.just(result)).when(statement).execute();
+        statements.add(statement);
+        return statement;
+    }
+
+    /**
+     * 🔸 Valores enlazados en orden; DatabaseClient envuelve cada uno en un {@link Parameter}.
+     */
+    private static List<Object> bound(Statement statement) {
+        ArgumentCaptor<Object> values = ArgumentCaptor.forClass(Object.class);
+        verify(statement, atLeast(0)).bind(anyInt(), values.capture());
+        return values.getAllValues().stream()
+                .map(value -> value instanceof Parameter parameter ? parameter.getValue() : value)
+                .toList();
+    }
+
+    private static Row row(WorkshopCache workshop) {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("id", workshop.getId());
+        columns.put("name", workshop.getName());
+        columns.put("date_start", workshop.getDateStart());
+        columns.put("date_end", workshop.getDateEnd());
+        columns.put("status", workshop.getStatus());
+        Row row = mock(Row.class);
+        when(row.get(anyString())).thenAnswer(inv -> columns.get(inv.<String>getArgument(0)));
+        when(row.get(anyString(), any(Class.class))).thenAnswer(inv -> columns.get(inv.<String>getArgument(0)));
+        return row;
+    }
+
+    private static RowMetadata metadata() {
+        List<ColumnMetadata> columns = new ArrayList<>();
+        for (String name : List.of("id", "name", "date_start", "date_end", "status")) {
+            ColumnMetadata column = mock(ColumnMetadata.class);
+            when(column.getName()).thenReturn(name);
+            columns.add(column);
+        }
+        RowMetadata metadata = mock(RowMetadata.class);
+        when(metadata.contains(anyString())).thenReturn(true);
+        doReturn(columns).when(metadata).getColumnMetadatas();
+        return metadata;
+    }
+
+    private static WorkshopCache workshop(int id) {
+        return new WorkshopCache(id, "Taller " + id, FROM, TO, "A");
+    }
+}
@@ -0,0 +1,88 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfArtifactCacheTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * ✅ Un PDF guardado se encuentra por nombre y se invalida con todas sus variantes de fechas,
+     * sin tocar los PDFs de otros reportes.
+     */
+    @Test
+    void invalidateReport_shouldRemoveEveryDateRangeOfTheReport() throws Exception {
+        PdfArtifactCache cache = new PdfArtifactCache(directory.toString(), 10);
+        cache.init();
+
+        Path stored = cache.store("reporte_1.pdf", content("%PDF-1")).block(Duration.ofSeconds(5));
+        cache.store("reporte_1_from_2024-01-01.pdf", content("%PDF-2")).block(Duration.ofSeconds(5));
+        cache.store("reporte_10.pdf", content("%PDF-3")).block(Duration.ofSeconds(5));
+
+        assertEquals("%PDF-1", Files.readString(cache.get("reporte_1.pdf").orElseThrow()));
+
+        cache.invalidateReport(1);
+
+        assertTrue(cache.get("reporte_1.pdf").isEmpty());
+        assertTrue(cache.get("reporte_1_from_2024-01-01.pdf").isEmpty());
+        assertTrue(cache.get("reporte_10.pdf").isPresent());
+        assertFalse(Files.exists(stored));
+    }
+
+    /**
+     * ✅ Prueba que un PDF invalidado mientras una respuesta lo está enviando conserve su archivo
+     * hasta que la respuesta lo libera.
+     */
+    @Test
+    void invalidateReport_whilePinned_shouldDeleteOnlyAfterRelease() throws Exception {
+        PdfArtifactCache cache = new PdfArtifactCache(directory.toString(), 10);
+        cache.init();
+        Path stored = cache.store("reporte_3.pdf", content("%PDF")).block(Duration.ofSeconds(5));
+
+        PdfArtifactCache.Pin first = cache.pin(stored);
+        PdfArtifactCache.Pin second = cache.pin(stored);
+        cache.invalidateReport(3);
+
+        // 🔸 Ya no se sirve a nuevas peticiones, pero las respuestas en curso siguen leyendo el archivo
+        assertTrue(cache.get("reporte_3.pdf").isEmpty());
+        assertEquals("%PDF", Files.readString(stored));
+
+        first.release();
+        // 🔸 Liberar de nuevo no descuenta la otra respuesta
+        first.release();
+        assertTrue(Files.exists(stored));
+
+        second.release();
+        assertFalse(Files.exists(stored));
+    }
+
+    /**
+     * ✅ Al reiniciar, el índice se reconstruye con los archivos que quedaron en disco.
+     */
+    @Test
+    void init_shouldRebuildIndexFromDisk() {
+        PdfArtifactCache cache = new PdfArtifactCache(directory.toString(), 10);
+        cache.init();
+        cache.store("reporte_2.pdf", content("%PDF")).block(Duration.ofSeconds(5));
+
+        PdfArtifactCache restarted = new PdfArtifactCache(directory.toString(), 10);
+        restarted.init();
+
+        assertTrue(restarted.get("reporte_2.pdf").isPresent());
+    }
+
+    private static Flux<DataBuffer> content(String text) {
+        return Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes()));
+    }
+}
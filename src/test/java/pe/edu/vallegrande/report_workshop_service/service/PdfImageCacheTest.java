@@ -0,0 +1,135 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfImageCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private DisposableServer server;
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    @BeforeEach
+    void startImageServer() throws IOException {
+        // 🔸 Imagen grande (2400x1800) servida con una pequeña demora
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2400, 1800, BufferedImage.TYPE_INT_ARGB), "png", png);
+        byte[] bytes = png.toByteArray();
+
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/foto.png", (req, res) -> {
+                            downloads.incrementAndGet();
+                            return res.header("Content-Type", "image/png")
+                                    .send(Mono.just(Unpooled.wrappedBuffer(bytes)).delayElement(Duration.ofMillis(100)));
+                        })
+                        .get("/rota.png", (req, res) -> res.status(404).send()))
+                .bindNow();
+    }
+
+    @AfterEach
+    void stopImageServer() {
+        server.disposeNow();
+    }
+
+    private PdfImageCache newCache() {
+        return newCache(16);
+    }
+
+    private PdfImageCache newCache(long maxSizeMb) {
+        PdfImageCache cache = new PdfImageCache(WebClient.create(), directory.toString(), maxSizeMb, 4, 150);
+        cache.init();
+        return cache;
+    }
+
+    /**
+     * ✅ Prueba que la imagen se reduzca al recuadro de la plantilla (380x260 pt a 150 dpi)
+     * y que pedidos simultáneos de la misma URL compartan una sola descarga.
+     */
+    @Test
+    void localize_shouldDownscaleOnceAndReturnLocalFile() throws IOException {
+        PdfImageCache cache = newCache();
+        String url = "http://localhost:" + server.port() + "/foto.png";
+
+        List<Map<String, String>> results = Flux.range(0, 5)
+                .flatMap(i -> cache.localize(List.of(url, " " + url + " ")))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertNotNull(results);
+        String local = results.get(0).get(url);
+        assertTrue(local.startsWith("file:"));
+        assertEquals(1, downloads.get());
+
+        BufferedImage stored = ImageIO.read(Path.of(URI.create(local)).toFile());
+        assertEquals(721, stored.getWidth());
+        assertEquals(541, stored.getHeight());
+
+        // 🔸 Tras un reinicio, la imagen se recupera del disco sin descargarla otra vez
+        assertEquals(local, newCache().localize(List.of(url)).block(Duration.ofSeconds(5)).get(url));
+        assertEquals(1, downloads.get());
+    }
+
+    /**
+     * ✅ Prueba que una imagen expulsada mientras un render la tiene fijada conserve su archivo
+     * hasta que el render la libera.
+     */
+    @Test
+    void localize_evictedWhilePinned_shouldDeleteOnlyAfterRelease() throws InterruptedException {
+        // 🔸 Con 0 MB toda imagen se expulsa apenas termina de cargarse
+        PdfImageCache cache = newCache(0);
+        String url = "http://localhost:" + server.port() + "/foto.png";
+
+        PdfImageCache.Pin pin = cache.pin(List.of(url));
+        Path local = Path.of(URI.create(cache.localize(List.of(url)).block(Duration.ofSeconds(5)).get(url)));
+        // 🔸 Caffeine pesa la entrada al completarse la descarga (en otro hilo) y expulsa en su mantenimiento,
+        // que corre con la siguiente escritura: se repite la escritura para no depender de ese orden
+        for (int i = 0; i < 5; i++) {
+            cache.localize(List.of("http://localhost:" + server.port() + "/rota.png")).block(Duration.ofSeconds(5));
+            Thread.sleep(20);
+        }
+
+        assertTrue(Files.exists(local));
+        pin.release();
+        assertFalse(Files.exists(local));
+        // 🔸 Liberar de nuevo no tiene efecto
+        pin.release();
+    }
+
+    /**
+     * ✅ Prueba que una imagen que no se puede descargar conserve su URL original.
+     */
+    @Test
+    void localize_failedDownload_shouldKeepOriginalUrl() {
+        String url = "http://localhost:" + server.port() + "/rota.png";
+
+        Map<String, String> result = newCache().localize(List.of(url)).block(Duration.ofSeconds(5));
+
+        assertEquals(url, result.get(url));
+    }
+}
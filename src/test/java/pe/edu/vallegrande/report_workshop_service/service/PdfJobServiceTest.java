@@ -0,0 +1,181 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.edu.vallegrande.report_workshop_service.dto.PdfArtifact;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import pe.edu.vallegrande.report_workshop_service.model.PdfJob;
+import pe.edu.vallegrande.report_workshop_service.repository.PdfJobRepository;
+import pe.edu.vallegrande.report_workshop_service.webclient.ReportBatchLoader;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PdfJobServiceTest {
+
+    @Mock
+    private PdfJobRepository jobRepository;
+
+    @Mock
+    private ReportWorkshopService reportService;
+
+    @Mock
+    private ReportBatchLoader reportLoader;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private PdfJobService pdfJobService;
+
+    private static PdfJob runningJob() {
+        return PdfJob.builder()
+                .id(UUID.randomUUID())
+                .reportId(7)
+                .fileName("reporte_7.pdf")
+                .reportSnapshot("{\"id\":7,\"year\":2024}")
+                .status(PdfJob.RUNNING)
+                .attempts(1)
+                .build();
+    }
+
+    /**
+     * ✅ Prueba que al pedir un PDF que ya tiene un trabajo activo se devuelva ese trabajo en lugar de crear otro.
+     */
+    @Test
+    void submit_withActiveJob_shouldReturnExistingJob() {
+        ReportDto report = new ReportDto();
+        report.setId(7);
+        PdfJob active = runningJob();
+
+        when(reportLoader.load(7)).thenReturn(Mono.just(report));
+        when(jobRepository.insertIfNoneActive(any(), eq(7), isNull(), isNull(), eq("reporte_7.pdf"), anyString()))
+                .thenReturn(Mono.empty());
+        when(jobRepository.findActiveByFileName("reporte_7.pdf")).thenReturn(Mono.just(active));
+
+        StepVerifier.create(pdfJobService.submit(7, null, null))
+                .expectNextMatches(job -> job.getId().equals(active.getId())
+                        && PdfJob.RUNNING.equals(job.getStatus())
+                        && job.getDownloadUrl() == null)
+                .verifyComplete();
+    }
+
+    /**
+     * ✅ Prueba que el worker genere el PDF con la copia guardada del reporte, bajo el nombre propio del trabajo,
+     * y lo marque como terminado.
+     */
+    @Test
+    void pollOnce_shouldRenderFromSnapshotAndMarkDone() {
+        PdfJob job = runningJob();
+        when(jobRepository.claimNext(anyInt())).thenReturn(Mono.just(job));
+        when(reportService.renderJobPdf(eq("job_" + job.getId() + ".pdf"), eq(7), isNull(), isNull(), any(ReportDto.class)))
+                .thenReturn(Mono.empty());
+        when(jobRepository.finish(job.getId(), PdfJob.DONE, null)).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(pdfJobService.pollOnce()).verifyComplete();
+
+        verify(jobRepository).finish(job.getId(), PdfJob.DONE, null);
+        verify(reportService, never()).generatePdf(any(), any(), any(), any());
+    }
+
+    /**
+     * ✅ Prueba que un render rechazado por la cola llena devuelva el trabajo a pendiente sin gastar el intento.
+     */
+    @Test
+    void pollOnce_renderRejected_shouldReleaseJob() {
+        PdfJob job = runningJob();
+        ReflectionTestUtils.setField(pdfJobService, "pollIntervalMs", 10L);
+
+        when(jobRepository.claimNext(anyInt())).thenReturn(Mono.just(job));
+        when(reportService.renderJobPdf(anyString(), eq(7), isNull(), isNull(), any(ReportDto.class)))
+                .thenReturn(Mono.error(new PdfRenderRejectedException(10)));
+        when(jobRepository.release(job.getId())).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(pdfJobService.pollOnce()).verifyComplete();
+
+        verify(jobRepository).release(job.getId());
+        verify(jobRepository, never()).finish(any(), anyString(), any());
+    }
+
+    /**
+     * ✅ Prueba que un trabajo fallido vuelva a la cola con espera creciente en lugar de quedar disponible al instante.
+     */
+    @Test
+    void pollOnce_renderFailed_shouldRetryLaterWithBackoff() {
+        PdfJob job = runningJob();
+        job.setAttempts(2);
+
+        when(jobRepository.claimNext(anyInt())).thenReturn(Mono.just(job));
+        when(reportService.renderJobPdf(anyString(), eq(7), isNull(), isNull(), any(ReportDto.class)))
+                .thenReturn(Mono.error(new RuntimeException("jasper")));
+        when(jobRepository.retryLater(job.getId(), "jasper", 60L)).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(pdfJobService.pollOnce()).verifyComplete();
+
+        // 🔸 Segundo intento: 30s × 2
+        verify(jobRepository).retryLater(job.getId(), "jasper", 60L);
+        verify(jobRepository, never()).finish(any(), anyString(), any());
+    }
+
+    /**
+     * ✅ Prueba que al agotar los intentos el trabajo quede como fallido.
+     */
+    @Test
+    void pollOnce_lastAttemptFailed_shouldMarkFailed() {
+        PdfJob job = runningJob();
+        job.setAttempts(3);
+
+        when(jobRepository.claimNext(anyInt())).thenReturn(Mono.just(job));
+        when(reportService.renderJobPdf(anyString(), eq(7), isNull(), isNull(), any(ReportDto.class)))
+                .thenReturn(Mono.error(new RuntimeException("jasper")));
+        when(jobRepository.finish(job.getId(), PdfJob.FAILED, "jasper")).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(pdfJobService.pollOnce()).verifyComplete();
+
+        verify(jobRepository, never()).retryLater(any(), any(), anyLong());
+    }
+
+    /**
+     * ✅ Prueba que la descarga de un trabajo terminado entregue el archivo que generó el trabajo, sin volver a generarlo.
+     */
+    @Test
+    void download_done_shouldServeJobArtifactWithoutRendering() {
+        PdfJob job = runningJob();
+        job.setStatus(PdfJob.DONE);
+        PdfArtifact produced = PdfArtifact.file("reporte_7.pdf", Path.of("job.pdf"));
+        when(jobRepository.findById(job.getId())).thenReturn(Mono.just(job));
+        when(reportService.jobPdf("reporte_7.pdf", "job_" + job.getId() + ".pdf")).thenReturn(produced);
+
+        StepVerifier.create(pdfJobService.download(job.getId()))
+                .expectNext(produced)
+                .verifyComplete();
+
+        verify(reportService, never()).generatePdf(any(), any(), any(), any());
+        verify(reportService, never()).renderJobPdf(any(), any(), any(), any(), any());
+    }
+
+    /**
+     * ✅ Prueba que descargar un trabajo sin terminar falle con la excepción propia (409), no con un error genérico.
+     */
+    @Test
+    void download_notDone_shouldThrowJobNotReady() {
+        PdfJob job = runningJob();
+        when(jobRepository.findById(job.getId())).thenReturn(Mono.just(job));
+
+        StepVerifier.create(pdfJobService.download(job.getId()))
+                .expectError(PdfJobNotReadyException.class)
+                .verify();
+    }
+}
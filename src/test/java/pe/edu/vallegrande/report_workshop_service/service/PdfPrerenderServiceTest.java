@@ -0,0 +1,85 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PdfPrerenderServiceTest {
+
+    @Mock
+    private ReportWorkshopService reportService;
+
+    @Mock
+    private PdfRenderScheduler renderScheduler;
+
+    private PdfPrerenderService prerenderService;
+
+    @BeforeEach
+    void setup() {
+        prerenderService = new PdfPrerenderService(reportService, renderScheduler, true, 100, 10, 5);
+    }
+
+    @AfterEach
+    void shutdown() {
+        prerenderService.destroy();
+    }
+
+    private static ReportDto report(int id, String trimester) {
+        ReportDto report = new ReportDto();
+        report.setId(id);
+        report.setTrimester(trimester);
+        return report;
+    }
+
+    /**
+     * ✅ Prueba que varios cambios seguidos del mismo reporte generen un solo pre-render, con los datos más recientes.
+     */
+    @Test
+    void onReportChanged_burst_shouldPrerenderOnceWithLatestData() {
+        when(renderScheduler.hasIdleCapacity()).thenReturn(true);
+        when(reportService.refreshPdf(any())).thenReturn(Mono.empty());
+
+        prerenderService.onReportChanged(new ReportChangedEvent(4, report(4, "enero-marzo")));
+        prerenderService.onReportChanged(new ReportChangedEvent(4, report(4, "abril-junio")));
+        prerenderService.onReportChanged(new ReportChangedEvent(4, null));
+
+        verify(reportService, timeout(2000)).refreshPdf(argThat(r -> "abril-junio".equals(r.getTrimester())));
+        verify(reportService, after(300).times(1)).refreshPdf(any());
+    }
+
+    /**
+     * ✅ Prueba que un cambio sin datos (Kafka) no vuelva a generar el PDF con una copia vieja:
+     * el consumidor ya invalidó la copia local y el PDF se generará a pedido.
+     */
+    @Test
+    void onReportChanged_withoutData_shouldNotPrerender() {
+        prerenderService.onReportChanged(new ReportChangedEvent(8, null));
+
+        verify(reportService, after(500).never()).refreshPdf(any());
+        verifyNoInteractions(renderScheduler);
+    }
+
+    /**
+     * ✅ Prueba que sin renders libres el pre-render se reprograme (sin bloquear el hilo) y corra cuando se liberan.
+     */
+    @Test
+    void prerender_busyScheduler_shouldRequeueUntilIdle() {
+        when(renderScheduler.hasIdleCapacity()).thenReturn(false, false, true);
+        when(reportService.refreshPdf(any())).thenReturn(Mono.empty());
+
+        prerenderService.onReportChanged(new ReportChangedEvent(6, report(6, "julio-septiembre")));
+
+        verify(reportService, timeout(3000)).refreshPdf(argThat(r -> r.getId() == 6));
+        verify(renderScheduler, times(3)).hasIdleCapacity();
+    }
+}
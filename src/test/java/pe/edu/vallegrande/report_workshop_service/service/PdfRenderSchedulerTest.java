@@ -0,0 +1,91 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PdfRenderSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PdfRenderScheduler scheduler = new PdfRenderScheduler(meterRegistry, 1, 1, 7);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.destroy();
+    }
+
+    /**
+     * ✅ Con un hilo ocupado y la cola llena, el siguiente render se rechaza de inmediato
+     * con el tiempo de reintento configurado, y las métricas reflejan la carga.
+     */
+    @Test
+    void submit_shouldRejectWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Mono<String> running = scheduler.submit(() -> {
+            started.countDown();
+            release.await();
+            return "primero";
+        }).cache();
+        running.subscribe();
+        started.await();
+
+        Mono<String> queued = scheduler.submit(() -> "segundo").cache();
+        queued.subscribe();
+
+        assertEquals(1.0, meterRegistry.get("pdf.render.active").gauge().value());
+        assertEquals(1.0, meterRegistry.get("pdf.render.queue.depth").gauge().value());
+
+        StepVerifier.create(scheduler.submit(() -> "tercero"))
+                .expectErrorMatches(e -> e instanceof PdfRenderRejectedException rejected
+                        && rejected.getRetryAfterSeconds() == 7)
+                .verify(Duration.ofSeconds(5));
+
+        release.countDown();
+        StepVerifier.create(running).expectNext("primero").verifyComplete();
+        StepVerifier.create(queued).expectNext("segundo").verifyComplete();
+    }
+
+    /**
+     * ✅ La exportación tiene su propio límite: con un hilo exportando y uno en cola, la siguiente se rechaza
+     * aunque el pool de llenado esté libre.
+     */
+    @Test
+    void stream_shouldRejectWhenExportQueueIsFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Disposable running = scheduler.stream(outputStream -> {
+            started.countDown();
+            try {
+                release.await();
+                outputStream.write(1);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, 16).subscribe();
+        started.await();
+        Disposable queued = scheduler.stream(outputStream -> { }, 16).subscribe();
+
+        assertEquals(1.0, meterRegistry.get("pdf.export.active").gauge().value());
+        assertEquals(1.0, meterRegistry.get("pdf.export.queue.depth").gauge().value());
+
+        StepVerifier.create(scheduler.stream(outputStream -> { }, 16))
+                .expectErrorMatches(e -> e instanceof PdfRenderRejectedException rejected
+                        && rejected.getRetryAfterSeconds() == 7)
+                .verify(Duration.ofSeconds(5));
+
+        release.countDown();
+        running.dispose();
+        queued.dispose();
+    }
+}
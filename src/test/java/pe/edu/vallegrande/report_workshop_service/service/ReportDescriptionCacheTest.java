@@ -0,0 +1,112 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReportDescriptionCacheTest {
+
+    private static final String HTML = "<html><head><style>p{}</style></head>"
+            + "<body>\n  <p>Hola</p><!-- nota --><script>alert(1)</script>\n</body></html>";
+
+    private DisposableServer server;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicBoolean down = new AtomicBoolean();
+
+    @BeforeEach
+    void startHtmlServer() {
+        // 🔸 Responde 304 cuando el cliente envía el ETag vigente
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/descripcion.html", (req, res) -> {
+                            if (down.get()) {
+                                return res.status(500).send();
+                            }
+                            if ("\"v1\"".equals(req.requestHeaders().get("If-None-Match"))) {
+                                notModified.incrementAndGet();
+                                return res.status(304).send();
+                            }
+                            fullResponses.incrementAndGet();
+                            return res.header("Content-Type", "text/html; charset=UTF-8")
+                                    .header("ETag", "\"v1\"")
+                                    .sendString(Mono.just(HTML));
+                        })
+                        // 🔸 Respuesta lenta para que los pedidos simultáneos se superpongan
+                        .get("/lenta.html", (req, res) -> {
+                            fullResponses.incrementAndGet();
+                            return res.header("Content-Type", "text/html; charset=UTF-8")
+                                    .sendString(Mono.just(HTML).delayElement(Duration.ofMillis(200)));
+                        }))
+                .bindNow();
+    }
+
+    @AfterEach
+    void stopHtmlServer() {
+        server.disposeNow();
+    }
+
+    /**
+     * ✅ Prueba que el HTML se guarde preprocesado y que, vencida la TTL, se revalide con el ETag.
+     */
+    @Test
+    void get_shouldCacheSanitizedHtmlAndRevalidateWithEtag() {
+        ReportDescriptionCache cache = new ReportDescriptionCache(WebClient.create(), 0, 5, 10);
+        String url = "http://localhost:" + server.port() + "/descripcion.html";
+
+        assertEquals("<p>Hola</p>", cache.get(url).block(Duration.ofSeconds(5)));
+        assertEquals("<p>Hola</p>", cache.get(url).block(Duration.ofSeconds(5)));
+
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModified.get());
+    }
+
+    /**
+     * ✅ Prueba que varios pedidos simultáneos de una descripción sin copia compartan una sola descarga
+     * y que, terminada, el siguiente pedido salga de la caché.
+     */
+    @Test
+    void get_concurrentColdMisses_shouldShareSingleDownload() {
+        ReportDescriptionCache cache = new ReportDescriptionCache(WebClient.create(), 300, 5, 10);
+        String url = "http://localhost:" + server.port() + "/lenta.html";
+
+        List<String> results = Flux.range(0, 10)
+                .flatMap(i -> cache.get(url))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(Collections.nCopies(10, "<p>Hola</p>"), results);
+        assertEquals(1, fullResponses.get());
+        assertEquals("<p>Hola</p>", cache.get(url).block(Duration.ofSeconds(5)));
+        assertEquals(1, fullResponses.get());
+    }
+
+    /**
+     * ✅ Prueba que si el servidor falla se use la última versión conocida, y cadena vacía si no hay ninguna.
+     */
+    @Test
+    void get_serverError_shouldFallBackToPreviousContent() {
+        ReportDescriptionCache cache = new ReportDescriptionCache(WebClient.create(), 0, 5, 10);
+        String url = "http://localhost:" + server.port() + "/descripcion.html";
+
+        cache.get(url).block(Duration.ofSeconds(5));
+        down.set(true);
+
+        assertEquals("<p>Hola</p>", cache.get(url).block(Duration.ofSeconds(5)));
+        assertEquals("", new ReportDescriptionCache(WebClient.create(), 0, 5, 10).get(url).block(Duration.ofSeconds(5)));
+    }
+}
@@ -0,0 +1,163 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import pe.edu.vallegrande.report_workshop_service.dto.PdfArtifact;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportWithWorkshopsDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReportExportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private ReportWorkshopService reportService;
+
+    @Mock
+    private SupabaseStorageService storageService;
+
+    private ReportExportService exportService;
+
+    @BeforeEach
+    void setup() {
+        // 🔸 Caché local real sobre un directorio temporal: las copias de Supabase se bajan ahí antes del ZIP
+        PdfArtifactCache artifactCache = new PdfArtifactCache(directory.resolve("cache").toString(), 64);
+        artifactCache.init();
+        exportService = new ReportExportService(reportService, storageService, artifactCache);
+    }
+
+    private static ReportWithWorkshopsDto report(int id) {
+        ReportDto report = new ReportDto();
+        report.setId(id);
+        ReportWithWorkshopsDto dto = new ReportWithWorkshopsDto();
+        dto.setReport(report);
+        return dto;
+    }
+
+    private static Flux<DataBuffer> bytes(String content) {
+        return Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * ✅ Prueba que el ZIP incluya un PDF por reporte, tomando cada uno de su origen:
+     * caché local (también la de un render nuevo) o copia en Supabase.
+     */
+    @Test
+    void exportZip_shouldStreamOneEntryPerReport() throws IOException {
+        Path cached = Files.writeString(directory.resolve("reporte_1.pdf"), "pdf-local");
+        Path rendered = Files.writeString(directory.resolve("reporte_3.pdf"), "pdf-nuevo");
+
+        when(reportService.findFilteredReports(isNull(), isNull(), eq(2024), isNull(), isNull()))
+                .thenReturn(Flux.just(report(1), report(2), report(3)));
+        when(reportService.generatePdf(eq(1), isNull(), isNull(), any()))
+                .thenReturn(Mono.just(PdfArtifact.file("reporte_1.pdf", cached)));
+        when(reportService.generatePdf(eq(2), isNull(), isNull(), any()))
+                .thenReturn(Mono.just(PdfArtifact.redirect("reporte_2.pdf", "reporte_2.pdf", "https://supabase/pdf/reporte_2.pdf")));
+        when(storageService.download("pdf", "reporte_2.pdf")).thenReturn(bytes("pdf-supabase"));
+        when(reportService.generatePdf(eq(3), isNull(), isNull(), any()))
+                .thenReturn(Mono.just(PdfArtifact.file("reporte_3.pdf", rendered)));
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        DataBufferUtils.write(exportService.exportZip(null, null, 2024), zip)
+                .doOnNext(DataBufferUtils::release)
+                .blockLast(Duration.ofSeconds(10));
+
+        // 🔸 Se leen las entradas del ZIP generado
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        assertEquals(Map.of(
+                "reporte_1.pdf", "pdf-local",
+                "reporte_2.pdf", "pdf-supabase",
+                "reporte_3.pdf", "pdf-nuevo"), entries);
+    }
+
+    /**
+     * ✅ Prueba que un reporte cuyo PDF falla se omita sin cortar el resto del ZIP.
+     */
+    @Test
+    void exportZip_failedReport_shouldBeSkipped() throws IOException {
+        Path cached = Files.writeString(directory.resolve("reporte_1.pdf"), "pdf-local");
+
+        when(reportService.findFilteredReports(isNull(), isNull(), isNull(), isNull(), isNull()))
+                .thenReturn(Flux.fromIterable(List.of(report(1), report(2))));
+        when(reportService.generatePdf(eq(1), isNull(), isNull(), any()))
+                .thenReturn(Mono.just(PdfArtifact.file("reporte_1.pdf", cached)));
+        when(reportService.generatePdf(eq(2), isNull(), isNull(), any()))
+                .thenReturn(Mono.error(new RuntimeException("Error generando el PDF")));
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        DataBufferUtils.write(exportService.exportZip(null, null, null), zip)
+                .doOnNext(DataBufferUtils::release)
+                .blockLast(Duration.ofSeconds(10));
+
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            assertEquals("reporte_1.pdf", in.getNextEntry().getName());
+            assertEquals(null, in.getNextEntry());
+        }
+    }
+
+    /**
+     * ✅ Prueba que si la descarga de Supabase se corta a mitad del archivo el reporte se omita entero,
+     * sin dejar en el ZIP una entrada a medias.
+     */
+    @Test
+    void exportZip_downloadCutMidway_shouldOmitEntry() throws IOException {
+        Path cached = Files.writeString(directory.resolve("reporte_1.pdf"), "pdf-local");
+
+        when(reportService.findFilteredReports(isNull(), isNull(), isNull(), isNull(), isNull()))
+                .thenReturn(Flux.just(report(1), report(2)));
+        when(reportService.generatePdf(eq(1), isNull(), isNull(), any()))
+                .thenReturn(Mono.just(PdfArtifact.file("reporte_1.pdf", cached)));
+        when(reportService.generatePdf(eq(2), isNull(), isNull(), any()))
+                .thenReturn(Mono.just(PdfArtifact.redirect("reporte_2.pdf", "reporte_2.pdf", "https://supabase/pdf/reporte_2.pdf")));
+        when(storageService.download("pdf", "reporte_2.pdf"))
+                .thenReturn(Flux.concat(bytes("pdf-sup"), Flux.error(new IOException("conexión cortada"))));
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        DataBufferUtils.write(exportService.exportZip(null, null, null), zip)
+                .doOnNext(DataBufferUtils::release)
+                .blockLast(Duration.ofSeconds(10));
+
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            assertEquals("reporte_1.pdf", in.getNextEntry().getName());
+            assertEquals("pdf-local", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals(null, in.getNextEntry());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import pe.edu.vallegrande.report_workshop_service.model.ReportWorkshop;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportPdfRendererTest {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    @TempDir
+    Path imageDir;
+
+    private final PdfRenderScheduler scheduler = new PdfRenderScheduler(new SimpleMeterRegistry(), 1, 4, 5);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.destroy();
+    }
+
+    /**
+     * ✅ El PDF se exporta en bloques acotados por pdf.render.chunk-size
+     * y el resultado concatenado es un PDF válido.
+     */
+    @Test
+    void render_shouldStreamPdfInBoundedChunks() {
+        JasperTemplateRegistry registry = new JasperTemplateRegistry(new PathMatchingResourcePatternResolver(), "classpath*:*.jasper");
+        registry.loadAll();
+        PdfImageCache imageCache = new PdfImageCache(WebClient.create(), imageDir.toString(), 16, 2, 150);
+        imageCache.init();
+        ReportDescriptionCache descriptionCache = new ReportDescriptionCache(WebClient.create(), 60, 5, 10);
+        ReportPdfRenderer renderer = new ReportPdfRenderer(registry, scheduler, imageCache, descriptionCache);
+        ReflectionTestUtils.setField(renderer, "chunkSize", CHUNK_SIZE);
+
+        ReportDto report = new ReportDto();
+        report.setId(1);
+        report.setYear(2024);
+        report.setTrimester("abril-junio");
+        report.setStatus("A");
+
+        List<ReportWorkshop> workshops = List.of(ReportWorkshop.builder()
+                .id(1)
+                .reportId(1)
+                .workshopName("Taller de lectura")
+                .description("Lectura compartida con los estudiantes.")
+                .imageUrl(new String[0])
+                .build());
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        List<DataBuffer> chunks = renderer.render(report, workshops)
+                .flatMapMany(flux -> flux)
+                .collectList()
+                .block(Duration.ofSeconds(60));
+
+        assertTrue(chunks != null && !chunks.isEmpty());
+        for (DataBuffer chunk : chunks) {
+            assertTrue(chunk.readableByteCount() <= CHUNK_SIZE);
+            byte[] bytes = new byte[chunk.readableByteCount()];
+            chunk.read(bytes);
+            pdf.writeBytes(bytes);
+        }
+        assertTrue(new String(pdf.toByteArray(), 0, 5, StandardCharsets.US_ASCII).startsWith("%PDF"));
+    }
+}
@@ -0,0 +1,116 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportStatsRow;
+import pe.edu.vallegrande.report_workshop_service.repository.ReportMetaRepository;
+import pe.edu.vallegrande.report_workshop_service.webclient.ReportCoreClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportStatsServiceTest {
+
+    @Mock
+    private ReportMetaRepository reportMetaRepo;
+
+    @Mock
+    private ReportCoreClient reportClient;
+
+    @Mock
+    private WorkshopCacheStore workshopCacheStore;
+
+    @InjectMocks
+    private ReportStatsService statsService;
+
+    private static ReportDto report(int id, int year, String trimester, String status) {
+        ReportDto report = new ReportDto();
+        report.setId(id);
+        report.setYear(year);
+        report.setTrimester(trimester);
+        report.setStatus(status);
+        return report;
+    }
+
+    /**
+     * ✅ Prueba que las estadísticas se armen con las filas agregadas de la base,
+     * contando como "sin año" solo a los reportes con talleres que no tienen datos guardados.
+     */
+    @Test
+    void snapshot_shouldFoldAggregatedRows() {
+        when(reportClient.findAll()).thenReturn(Flux.empty());
+        when(workshopCacheStore.countByStatus()).thenReturn(Map.of("A", 3, "I", 1));
+        when(reportMetaRepo.countByPeriodAndStatus()).thenReturn(Flux.just(
+                new ReportStatsRow(2024, "julio-septiembre", "A", 2L, 5L),
+                new ReportStatsRow(2024, "julio-septiembre", "I", 1L, 0L),
+                new ReportStatsRow(2023, "abril-junio", "I", 1L, 1L),
+                new ReportStatsRow(null, null, null, 1L, 4L)));
+
+        StepVerifier.create(statsService.snapshot())
+                .assertNext(stats -> {
+                    assertEquals(5, stats.getTotalReports());
+                    assertEquals(Map.of("2024", Map.of("julio-septiembre", 3L), "2023", Map.of("abril-junio", 1L),
+                            "sin año", Map.of("sin trimestre", 1L)), stats.getReportsByYearAndTrimester());
+                    assertEquals(Map.of("A", 2L, "I", 2L, "sin estado", 1L), stats.getReportsByStatus());
+                    assertEquals(10, stats.getTotalWorkshops());
+                    assertEquals(2.0, stats.getAverageWorkshopsPerReport());
+                    assertEquals(Map.of("A", 3, "I", 1), stats.getWorkshopsByStatus());
+                    assertNotNull(stats.getGeneratedAt());
+                })
+                .verifyComplete();
+    }
+
+    /**
+     * ✅ Prueba que los reportes anteriores a report_meta se completen desde el core una sola vez,
+     * sin pisar los datos ya guardados, y que un fallo del core se reintente en el pedido siguiente.
+     */
+    @Test
+    void snapshot_shouldBackfillMissingReportsOnce() {
+        when(workshopCacheStore.countByStatus()).thenReturn(Map.of());
+        when(reportMetaRepo.countByPeriodAndStatus()).thenReturn(Flux.empty());
+        when(reportMetaRepo.insertIfAbsent(anyInt(), any(), any(), any())).thenReturn(Mono.just(1L));
+        when(reportClient.findAll())
+                .thenReturn(Flux.error(new IllegalStateException("core caído")))
+                .thenReturn(Flux.just(report(1, 2022, "enero-marzo", "A"), report(2, 2023, "abril-junio", "I")));
+
+        // 🔸 El core falla: las estadísticas responden igual con lo que hay en la base
+        StepVerifier.create(statsService.snapshot()).expectNextCount(1).verifyComplete();
+        verify(reportMetaRepo, never()).insertIfAbsent(anyInt(), any(), any(), any());
+
+        StepVerifier.create(statsService.snapshot()).expectNextCount(1).verifyComplete();
+        StepVerifier.create(statsService.snapshot()).expectNextCount(1).verifyComplete();
+
+        verify(reportClient, times(2)).findAll();
+        verify(reportMetaRepo).insertIfAbsent(1, 2022, "enero-marzo", "A");
+        verify(reportMetaRepo).insertIfAbsent(2, 2023, "abril-junio", "I");
+    }
+
+    /**
+     * ✅ Prueba que altas, cambios de estado y eliminaciones se guarden en report_meta
+     * y que un fallo de la base no haga fallar la operación ya hecha en el core.
+     */
+    @Test
+    void recordChanges_shouldPersistAndSwallowErrors() {
+        when(reportMetaRepo.upsert(1, 2024, "enero-marzo", "A")).thenReturn(Mono.just(1L));
+        when(reportMetaRepo.upsert(2, 2024, "abril-junio", "I")).thenReturn(Mono.error(new IllegalStateException("db caída")));
+        when(reportMetaRepo.deleteById(3)).thenReturn(Mono.empty());
+
+        StepVerifier.create(statsService.recordReport(1, report(1, 2024, "enero-marzo", "A"))).verifyComplete();
+        StepVerifier.create(statsService.recordStatus(report(2, 2024, "abril-junio", "I"))).verifyComplete();
+        StepVerifier.create(statsService.recordDeleted(3)).verifyComplete();
+
+        verify(reportMetaRepo).upsert(1, 2024, "enero-marzo", "A");
+        verify(reportMetaRepo).deleteById(3);
+    }
+}
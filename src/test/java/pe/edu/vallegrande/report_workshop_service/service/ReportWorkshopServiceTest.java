@@ -2,22 +2,47 @@ package pe.edu.vallegrande.report_workshop_service.service;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import pe.edu.vallegrande.report_workshop_service.dto.PdfArtifact;
 import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportPageDto;
 import pe.edu.vallegrande.report_workshop_service.dto.ReportWithWorkshopsDto;
 import pe.edu.vallegrande.report_workshop_service.dto.ReportWorkshopDto;
 import pe.edu.vallegrande.report_workshop_service.model.ReportWorkshop;
+import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
+import pe.edu.vallegrande.report_workshop_service.repository.ReportPdfVersionRepository;
 import pe.edu.vallegrande.report_workshop_service.repository.ReportWorkshopRepository;
-import pe.edu.vallegrande.report_workshop_service.repository.WorkshopCacheRepository;
+import pe.edu.vallegrande.report_workshop_service.webclient.ReportBatchLoader;
 import pe.edu.vallegrande.report_workshop_service.webclient.ReportCoreClient;
+import pe.edu.vallegrande.report_workshop_service.webclient.UpstreamOverloadedException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 import static org.mockito.Mockito.*;
 
@@ -30,15 +55,39 @@ class ReportWorkshopServiceTest {
     @Mock
     private ReportCoreClient reportClient;
 
+    @Mock
+    private ReportBatchLoader reportLoader;
+
     @Mock
     private ReportWorkshopRepository reportWorkshopRepo;
 
     @Mock
-    private WorkshopCacheRepository workshopCacheRepo;
+    private WorkshopCacheStore workshopCacheStore;
 
     @Mock
     private SupabaseStorageService storageService;
 
+    @Mock
+    private ReportPdfRenderer pdfRenderer;
+
+    @Mock
+    private PdfArtifactCache artifactCache;
+
+    @Mock
+    private ReportPdfVersionRepository pdfVersions;
+
+    @Mock
+    private JasperTemplateRegistry templateRegistry;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ReportStatsService statsService;
+
     /**
      * ✅ Prueba la creación de un reporte con un taller personalizado (sin workshopId).
      * Se mockea el cliente core para crear el reporte y el repo para guardar los talleres.
@@ -92,7 +141,8 @@ class ReportWorkshopServiceTest {
 
         // 🔸 Mocks del comportamiento esperado
         when(reportClient.create(report)).thenReturn(Mono.just(savedReport));
-        when(reportWorkshopRepo.saveAll(anyList())).thenReturn(Flux.just(savedWorkshop));
+        when(reportWorkshopRepo.insertAll(anyList())).thenReturn(Flux.just(savedWorkshop));
+        when(statsService.recordReport(1, savedReport)).thenReturn(Mono.empty());
 
         // 🔸 Verificación
         StepVerifier.create(service.create(input))
@@ -103,21 +153,220 @@ class ReportWorkshopServiceTest {
                 .verifyComplete();
     }
 
+    /**
+     * ✅ Prueba la edición por diferencias: solo se actualiza el taller modificado, se inserta el nuevo
+     * y se elimina el que ya no viene, sin borrar y reinsertar todos los talleres del reporte.
+     */
+    @Test
+    void updateReport_shouldApplyOnlyChangedWorkshops() {
+        ReportDto report = new ReportDto();
+        report.setId(5);
+
+        ReportWorkshop unchanged = ReportWorkshop.builder().id(1).reportId(5).workshopName("Taller de canto")
+                .imageUrl(new String[] {"https://xyz.supabase.co/canto.jpg"}).build();
+        ReportWorkshop edited = ReportWorkshop.builder().id(2).reportId(5).workshopName("Taller de danza")
+                .imageUrl(new String[] {"https://xyz.supabase.co/danza.jpg"}).build();
+        ReportWorkshop removed = ReportWorkshop.builder().id(3).reportId(5).workshopName("Taller de cocina")
+                .imageUrl(new String[] {}).build();
+
+        ReportWorkshopDto keep = new ReportWorkshopDto();
+        keep.setId(1);
+        keep.setWorkshopName("Taller de canto");
+        keep.setImageUrl(new String[] {"https://xyz.supabase.co/canto.jpg"});
+
+        ReportWorkshopDto edit = new ReportWorkshopDto();
+        edit.setId(2);
+        edit.setWorkshopName("Taller de danza moderna");
+        edit.setImageUrl(new String[] {"https://xyz.supabase.co/danza.jpg"});
+
+        ReportWorkshopDto added = new ReportWorkshopDto();
+        added.setWorkshopName("Taller de teatro");
+        added.setImageUrl(new String[] {"https://xyz.supabase.co/teatro.jpg"});
+
+        ReportWithWorkshopsDto input = new ReportWithWorkshopsDto();
+        input.setReport(report);
+        input.setWorkshops(List.of(keep, edit, added));
+
+        when(reportClient.update(5, report)).thenReturn(Mono.just(report));
+        when(reportWorkshopRepo.findByReportIdForUpdate(5)).thenReturn(Flux.just(unchanged, edited, removed));
+        when(reportWorkshopRepo.deleteByReportIdAndIdIn(eq(5), any(Integer[].class))).thenReturn(Mono.just(1L));
+        when(reportWorkshopRepo.updateAll(anyList())).thenReturn(Mono.just(1L));
+        when(reportWorkshopRepo.insertAll(anyList())).thenReturn(Flux.just(ReportWorkshop.builder().id(4).reportId(5)
+                .workshopName("Taller de teatro").build()));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(pdfVersions.bump(5)).thenReturn(Mono.just(1L));
+        when(storageService.deleteReportPdfs("pdf", 5, 1L)).thenReturn(Mono.just(2L));
+        when(statsService.recordReport(5, report)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.update(5, input))
+                .expectNextMatches(result -> result.getWorkshops().stream().map(ReportWorkshopDto::getId).toList()
+                        .equals(List.of(1, 2, 4)))
+                .verifyComplete();
+
+        // 🔸 Solo las filas que cambiaron
+        verify(reportWorkshopRepo).updateAll(argThat(rows -> rows.size() == 1 && rows.get(0).getId() == 2));
+        verify(reportWorkshopRepo).deleteByReportIdAndIdIn(eq(5), argThat(ids -> Arrays.equals(ids, new Integer[] {3})));
+        verify(reportWorkshopRepo).insertAll(argThat((List<ReportWorkshop> rows) -> rows.size() == 1 && rows.get(0).getId() == null));
+        verify(reportWorkshopRepo, never()).deleteByReportId(any());
+        verify(artifactCache).invalidateReport(5);
+        // 🔸 La versión nueva deja sin efecto las copias de todos los nodos; las del bucket se limpian
+        verify(pdfVersions).bump(5);
+        verify(storageService).deleteReportPdfs("pdf", 5, 1L);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof ReportChangedEvent changed && changed.reportId() == 5));
+        verify(statsService).recordReport(5, report);
+    }
+
+    /**
+     * ✅ Prueba que si otra edición borró un taller en paralelo (el UPDATE afecta menos filas de las esperadas)
+     * la sincronización falle con conflicto y no inserte nada.
+     */
+    @Test
+    void updateReport_rowsChangedConcurrently_shouldFailWithConflict() {
+        ReportDto report = new ReportDto();
+        report.setId(5);
+
+        ReportWorkshop stored = ReportWorkshop.builder().id(2).reportId(5).workshopName("Taller de danza")
+                .imageUrl(new String[] {}).build();
+
+        ReportWorkshopDto edit = new ReportWorkshopDto();
+        edit.setId(2);
+        edit.setWorkshopName("Taller de danza moderna");
+        edit.setImageUrl(new String[] {});
+
+        ReportWithWorkshopsDto input = new ReportWithWorkshopsDto();
+        input.setReport(report);
+        input.setWorkshops(List.of(edit));
+
+        when(reportClient.update(5, report)).thenReturn(Mono.just(report));
+        when(reportWorkshopRepo.findByReportIdForUpdate(5)).thenReturn(Flux.just(stored));
+        when(reportWorkshopRepo.updateAll(anyList())).thenReturn(Mono.just(0L));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        StepVerifier.create(service.update(5, input))
+                .expectError(ConcurrentReportUpdateException.class)
+                .verify();
+
+        verify(reportWorkshopRepo, never()).insertAll(anyList());
+        verify(artifactCache, never()).invalidateReport(any());
+        verify(pdfVersions, never()).bump(any());
+    }
+
+    /**
+     * ✅ Prueba que si Supabase no responde al borrar los PDFs viejos la versión nueva y la invalidación local
+     * igual se apliquen y el error no se propague a quien editó el reporte.
+     */
+    @Test
+    void invalidatePdfs_storageFails_shouldStillInvalidateLocally() {
+        when(pdfVersions.bump(7)).thenReturn(Mono.just(2L));
+        when(storageService.deleteReportPdfs("pdf", 7, 2L)).thenReturn(Mono.error(new IllegalStateException("supabase caído")));
+
+        StepVerifier.create(service.invalidatePdfs(7))
+                .verifyComplete();
+
+        verify(artifactCache).invalidateReport(7);
+        verify(pdfVersions).bump(7);
+    }
+
+    /**
+     * ✅ Prueba con dos instancias (cada una con su caché local en disco) que comparten la versión en la base:
+     * tras editar el reporte en el nodo A, el nodo B deja de servir su copia local y genera el PDF de nuevo.
+     */
+    @Test
+    void generatePdf_editedOnOtherNode_shouldNotServeStaleLocalCopy(@TempDir Path directory) throws IOException {
+        ReportDto report = stubRender(8);
+        AtomicLong version = new AtomicLong();
+        AtomicInteger renders = new AtomicInteger();
+        when(pdfVersions.currentVersion(8)).thenAnswer(inv -> Mono.fromSupplier(version::get));
+        when(pdfVersions.bump(8)).thenAnswer(inv -> Mono.fromSupplier(version::incrementAndGet));
+        when(storageService.fileExists(eq("pdf"), any())).thenReturn(Mono.just(false));
+        when(storageService.uploadPdf(eq("pdf"), any(), any(Path.class))).thenReturn(Mono.just("url"));
+        when(storageService.deleteReportPdfs(eq("pdf"), eq(8), anyLong())).thenReturn(Mono.just(0L));
+        when(pdfRenderer.render(eq(report), anyList())).thenAnswer(inv -> Mono.just(Flux.just(
+                DefaultDataBufferFactory.sharedInstance.wrap(("%PDF " + renders.incrementAndGet()).getBytes()))));
+
+        ReportWorkshopService nodeA = node(directory.resolve("a"));
+        ReportWorkshopService nodeB = node(directory.resolve("b"));
+
+        // 🔸 Cada nodo genera y guarda su copia; el segundo pedido a B sale de su caché local
+        nodeA.generatePdfByIdWithDateFilter(8, null, null).block(Duration.ofSeconds(5));
+        nodeB.generatePdfByIdWithDateFilter(8, null, null).block(Duration.ofSeconds(5));
+        Path staleOnB = nodeB.generatePdfByIdWithDateFilter(8, null, null).block(Duration.ofSeconds(5)).getFile();
+        assertEquals(2, renders.get());
+
+        // 🔸 La edición llega al nodo A
+        nodeA.invalidatePdfs(8).block(Duration.ofSeconds(5));
+
+        Path fresh = nodeB.generatePdfByIdWithDateFilter(8, null, null).block(Duration.ofSeconds(5)).getFile();
+        assertEquals(3, renders.get());
+        assertNotEquals(staleOnB, fresh);
+        assertEquals("%PDF 3", Files.readString(fresh));
+        verify(storageService).fileExists("pdf", "reporte_8.v1.pdf");
+    }
+
+    /**
+     * ✅ Prueba un trabajo encolado antes de una edición: al procesarse con la copia vieja del reporte guarda su PDF
+     * con el nombre del trabajo, y el PDF vigente del reporte (ya generado con los datos nuevos) no cambia.
+     */
+    @Test
+    void renderJobPdf_reportEditedWhileJobPending_shouldNotOverwriteCurrentPdf(@TempDir Path directory) throws IOException {
+        ReportDto edited = stubRender(9);
+        edited.setTrimester("julio-septiembre");
+        ReportDto snapshot = new ReportDto();
+        snapshot.setId(9);
+        snapshot.setTrimester("abril-junio");
+
+        when(pdfVersions.bump(9)).thenReturn(Mono.just(1L));
+        when(pdfVersions.currentVersion(9)).thenReturn(Mono.just(1L));
+        when(storageService.deleteReportPdfs("pdf", 9, 1L)).thenReturn(Mono.just(0L));
+        when(storageService.fileExists("pdf", "reporte_9.v1.pdf")).thenReturn(Mono.just(false));
+        when(storageService.uploadPdf(any(), any(), any(Path.class))).thenReturn(Mono.just("url"));
+        when(pdfRenderer.render(any(ReportDto.class), anyList())).thenAnswer(inv -> Mono.just(Flux.just(
+                DefaultDataBufferFactory.sharedInstance.wrap(("%PDF " + inv.<ReportDto>getArgument(0).getTrimester()).getBytes()))));
+        ReportWorkshopService node = node(directory);
+
+        // 🔸 La edición llega mientras el trabajo espera en la cola, y un usuario pide el PDF nuevo
+        node.invalidatePdfs(9).block(Duration.ofSeconds(5));
+        Path current = node.generatePdfByIdWithDateFilter(9, null, null).block(Duration.ofSeconds(5)).getFile();
+
+        // 🔸 Recién ahora el worker procesa el trabajo con la copia guardada al encolarlo
+        node.renderJobPdf("job_1.pdf", 9, null, null, snapshot).block(Duration.ofSeconds(5));
+
+        assertEquals("%PDF julio-septiembre", Files.readString(node.generatePdfByIdWithDateFilter(9, null, null)
+                .block(Duration.ofSeconds(5)).getFile()));
+        assertEquals("%PDF julio-septiembre", Files.readString(current));
+        assertEquals("%PDF abril-junio", Files.readString(node.jobPdf("reporte_9.pdf", "job_1.pdf").getFile()));
+        verify(storageService).uploadPdf(eq("pdf/jobs"), eq("job_1.pdf"), any(Path.class));
+        verify(storageService, never()).uploadPdf(eq("pdf"), eq("reporte_9.pdf"), any(Path.class));
+    }
+
+    private ReportWorkshopService node(Path cacheDirectory) {
+        PdfArtifactCache cache = new PdfArtifactCache(cacheDirectory.toString(), 16);
+        cache.init();
+        return new ReportWorkshopService(reportClient, reportLoader, reportWorkshopRepo, workshopCacheStore, storageService,
+                templateRegistry, pdfRenderer, cache, pdfVersions, transactionalOperator, eventPublisher, statsService);
+    }
+
     /**
      * ✅ Prueba la restauración de un reporte eliminado.
      * Se espera que el cliente core sea llamado correctamente y no haya error.
      */
     @Test
     void restoreReport_shouldCallCoreService() {
-        // 🔸 Mock: el core devuelve vacío (void)
+        // 🔸 Mock: el core devuelve vacío (void) y luego el reporte con su nuevo estado
+        ReportDto restored = new ReportDto();
+        restored.setId(5);
+        restored.setStatus("A");
         when(reportClient.restore(5)).thenReturn(Mono.empty());
+        when(reportClient.findById(5)).thenReturn(Mono.just(restored));
+        when(statsService.recordStatus(restored)).thenReturn(Mono.empty());
 
         // 🔸 Verificación
         StepVerifier.create(service.restore(5))
                 .verifyComplete();
 
-        // 🔸 Verifica que se haya llamado exactamente una vez
+        // 🔸 Verifica que se haya llamado exactamente una vez y que el nuevo estado se guarde antes de responder
         verify(reportClient).restore(5);
+        verify(statsService).recordStatus(restored);
     }
 
     /**
@@ -146,8 +395,8 @@ class ReportWorkshopServiceTest {
                 .build();
 
         // 🔸 Mocks de llamadas
-        when(reportClient.findAll()).thenReturn(Flux.just(report));
-        when(reportWorkshopRepo.findByReportId(2)).thenReturn(Flux.just(workshop));
+        when(reportClient.findFiltered("A", "abril-junio", 2024)).thenReturn(Flux.just(report));
+        when(reportWorkshopRepo.findByReportIdIn(any(Integer[].class))).thenReturn(Flux.just(workshop));
 
         // 🔸 Verificación
         StepVerifier.create(service.findFilteredReports("A", "abril-junio", 2024, null, null))
@@ -157,4 +406,218 @@ class ReportWorkshopServiceTest {
                                 result.getWorkshops().get(0).getWorkshopName().equals("Taller de dibujo"))
                 .verifyComplete();
     }
+
+    /**
+     * ✅ Prueba que el listado cargue los talleres de todos los reportes en lote:
+     * una sola consulta a report_workshops y una sola búsqueda en la réplica de workshop_cache,
+     * manteniendo el orden (año desc, trimestre) y el filtro por fechas.
+     */
+    @Test
+    void findFilteredReports_shouldLoadWorkshopsWithTwoQueries() {
+        ReportDto older = new ReportDto();
+        older.setId(10);
+        older.setYear(2023);
+        older.setTrimester("octubre-diciembre");
+        older.setStatus("A");
+
+        ReportDto first = new ReportDto();
+        first.setId(11);
+        first.setYear(2024);
+        first.setTrimester("enero-marzo");
+        first.setStatus("A");
+
+        ReportDto second = new ReportDto();
+        second.setId(12);
+        second.setYear(2024);
+        second.setTrimester("julio-septiembre");
+        second.setStatus("A");
+
+        ReportWorkshop linkedOlder = ReportWorkshop.builder().id(1).reportId(10).workshopId(100).build();
+        ReportWorkshop linkedFirst = ReportWorkshop.builder().id(2).reportId(11).workshopId(101).build();
+        ReportWorkshop customFirst = ReportWorkshop.builder().id(3).reportId(11)
+                .workshopName("Taller libre").workshopDateStart(LocalDate.of(2024, 2, 1)).build();
+        // 🔸 Taller fuera del rango de fechas: el reporte 12 queda sin talleres y no se devuelve
+        ReportWorkshop outOfRange = ReportWorkshop.builder().id(4).reportId(12).workshopId(102).build();
+
+        when(reportClient.findFiltered(null, null, null)).thenReturn(Flux.just(older, second, first));
+        when(reportWorkshopRepo.findByReportIdIn(any(Integer[].class)))
+                .thenReturn(Flux.just(linkedOlder, linkedFirst, customFirst, outOfRange));
+        when(workshopCacheStore.findAllById(any(Integer[].class))).thenReturn(Mono.just(Map.of(
+                100, WorkshopCache.builder().id(100).name("Pintura").status("A")
+                        .dateStart(LocalDate.of(2023, 11, 1)).dateEnd(LocalDate.of(2023, 11, 5)).build(),
+                101, WorkshopCache.builder().id(101).name("Danza").status("I")
+                        .dateStart(LocalDate.of(2024, 1, 10)).dateEnd(LocalDate.of(2024, 1, 12)).build(),
+                102, WorkshopCache.builder().id(102).name("Teatro").status("A")
+                        .dateStart(LocalDate.of(2022, 1, 10)).dateEnd(LocalDate.of(2022, 1, 12)).build())));
+
+        StepVerifier.create(service.findFilteredReports(null, null, null, LocalDate.of(2023, 1, 1), null))
+                .expectNextMatches(result -> result.getReport().getId().equals(11)
+                        && result.getWorkshops().size() == 2
+                        && result.getWorkshops().get(0).getWorkshopName().equals("Danza")
+                        && result.getWorkshops().get(0).getWorkshopStatus().equals("I"))
+                .expectNextMatches(result -> result.getReport().getId().equals(10)
+                        && result.getWorkshops().get(0).getWorkshopName().equals("Pintura"))
+                .verifyComplete();
+
+        // 🔸 Conteo de consultas: una sola a report_workshops, sin importar la cantidad de reportes
+        verify(reportWorkshopRepo, times(1)).findByReportIdIn(any(Integer[].class));
+        verify(workshopCacheStore, times(1)).findAllById(any(Integer[].class));
+        verify(reportWorkshopRepo, never()).findByReportId(any());
+        verify(workshopCacheStore, never()).findById(any());
+    }
+
+    /**
+     * ✅ Prueba la paginación por cursor: cada página respeta el orden (año desc, trimestre)
+     * y el cursor devuelto continúa exactamente donde terminó la anterior.
+     */
+    @Test
+    void findFilteredReportsPage_shouldContinueFromCursor() {
+        List<ReportDto> reports = new ArrayList<>();
+        String[] trimesters = {"enero-marzo", "abril-junio", "julio-septiembre"};
+        for (int i = 0; i < 3; i++) {
+            ReportDto report = new ReportDto();
+            report.setId(20 + i);
+            report.setYear(2024);
+            report.setTrimester(trimesters[i]);
+            report.setStatus("A");
+            reports.add(report);
+        }
+        Collections.reverse(reports);
+
+        when(reportClient.findFiltered(null, null, null)).thenAnswer(inv -> Flux.fromIterable(reports));
+        when(reportWorkshopRepo.findByReportIdIn(any(Integer[].class))).thenAnswer(inv -> {
+            Integer[] ids = inv.getArgument(0);
+            return Flux.fromArray(ids).map(id -> ReportWorkshop.builder().id(id).reportId(id).workshopName("Taller " + id).build());
+        });
+
+        ReportPageDto first = service.findFilteredReportsPage(null, null, null, null, null, null, 2).block();
+        assertNotNull(first);
+        assertEquals(List.of(20, 21), first.getItems().stream().map(r -> r.getReport().getId()).toList());
+        assertNotNull(first.getNextCursor());
+
+        ReportPageDto second = service.findFilteredReportsPage(null, null, null, null, null, first.getNextCursor(), 2).block();
+        assertNotNull(second);
+        assertEquals(List.of(22), second.getItems().stream().map(r -> r.getReport().getId()).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    /**
+     * ✅ Prueba que un cursor mal formado termine el Mono con su error propio (400), no con una excepción al armarlo.
+     */
+    @Test
+    void findFilteredReportsPage_invalidCursor_shouldFailWithInvalidCursor() {
+        StepVerifier.create(service.findFilteredReportsPage(null, null, null, null, null, "no-es-un-cursor", 2))
+                .expectError(InvalidCursorException.class)
+                .verify(Duration.ofSeconds(1));
+        verifyNoInteractions(reportClient);
+    }
+
+    /**
+     * ✅ Prueba que pedir más reportes que el máximo por lote falle con su excepción propia (400) sin llamar al core.
+     */
+    @Test
+    void findByIdsWithDateFilter_tooManyIds_shouldThrowTooManyIds() {
+        List<Integer> ids = IntStream.rangeClosed(1, 201).boxed().toList();
+
+        StepVerifier.create(service.findByIdsWithDateFilter(ids, null, null))
+                .expectError(TooManyIdsException.class)
+                .verify();
+        verifyNoInteractions(reportLoader);
+    }
+
+    /**
+     * ✅ Prueba de carga: N pedidos simultáneos del mismo PDF comparten un único render y una única subida.
+     * Todos reciben el archivo que el render dejó en la caché local.
+     */
+    @Test
+    void generatePdf_concurrentIdenticalRequests_shouldRenderOnce() {
+        int concurrentRequests = 50;
+        ReportDto report = stubRender(3);
+        Path storedFile = Path.of("reporte_3.pdf");
+        AtomicInteger renders = new AtomicInteger();
+
+        when(storageService.fileExists("pdf", "reporte_3.pdf"))
+                .thenAnswer(inv -> Mono.just(false).delayElement(Duration.ofMillis(20)));
+        when(pdfRenderer.render(eq(report), anyList())).thenAnswer(inv -> {
+            renders.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(100))
+                    .map(tick -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap("%PDF".getBytes())));
+        });
+        when(storageService.uploadPdf(eq("pdf"), eq("reporte_3.pdf"), any(Path.class))).thenReturn(Mono.just("url"));
+        when(artifactCache.store(eq("reporte_3.pdf"), any()))
+                .thenAnswer(inv -> inv.<Flux<DataBuffer>>getArgument(1).then(Mono.just(storedFile)));
+
+        List<PdfArtifact> artifacts = Flux.range(0, concurrentRequests)
+                .flatMap(i -> service.generatePdfByIdWithDateFilter(3, null, null)
+                        .subscribeOn(Schedulers.parallel()), concurrentRequests)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(concurrentRequests, artifacts.size());
+        assertEquals(concurrentRequests, artifacts.stream().filter(a -> storedFile.equals(a.getFile())).count());
+        assertEquals(1, renders.get());
+        verify(storageService, times(1)).uploadPdf(eq("pdf"), eq("reporte_3.pdf"), any(Path.class));
+    }
+
+    /**
+     * ✅ Prueba que una subida a Supabase rechazada por el límite de concurrencia no bloquee la respuesta
+     * ni deje el render marcado como en curso (el siguiente pedido vuelve a generar el PDF).
+     */
+    @Test
+    void generatePdf_rejectedUpload_shouldStillServeStoredFile() {
+        ReportDto report = stubRender(4);
+        Path storedFile = Path.of("reporte_4.pdf");
+
+        when(storageService.fileExists("pdf", "reporte_4.pdf")).thenReturn(Mono.just(false));
+        when(pdfRenderer.render(eq(report), anyList()))
+                .thenAnswer(inv -> Mono.just(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap("%PDF".getBytes()))));
+        when(storageService.uploadPdf(eq("pdf"), eq("reporte_4.pdf"), any(Path.class)))
+                .thenReturn(Mono.error(new UpstreamOverloadedException("supabase")));
+        when(artifactCache.store(eq("reporte_4.pdf"), any()))
+                .thenAnswer(inv -> inv.<Flux<DataBuffer>>getArgument(1).then(Mono.just(storedFile)));
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(service.generatePdfByIdWithDateFilter(4, null, null))
+                    .expectNextMatches(artifact -> storedFile.equals(artifact.getFile()))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(5));
+        }
+        verify(pdfRenderer, times(2)).render(eq(report), anyList());
+    }
+
+    /**
+     * ✅ Prueba que si Supabase rechaza la consulta por saturación el pedido falle con 503
+     * en lugar de tomar el PDF como no guardado y generarlo de nuevo.
+     */
+    @Test
+    void generatePdf_storageOverloaded_shouldFailWithoutRendering() {
+        ReportDto report = new ReportDto();
+        report.setId(6);
+        when(artifactCache.get("reporte_6.pdf")).thenReturn(Optional.empty());
+        when(pdfVersions.currentVersion(6)).thenReturn(Mono.just(0L));
+        when(reportLoader.load(6)).thenReturn(Mono.just(report));
+        when(storageService.fileExists("pdf", "reporte_6.pdf")).thenReturn(Mono.error(new UpstreamOverloadedException("supabase")));
+
+        StepVerifier.create(service.generatePdfByIdWithDateFilter(6, null, null))
+                .expectError(UpstreamOverloadedException.class)
+                .verify(Duration.ofSeconds(5));
+        verifyNoInteractions(pdfRenderer);
+    }
+
+    /**
+     * 🔸 Reporte y talleres para las pruebas de PDF, sin copia en la caché local.
+     */
+    private ReportDto stubRender(int reportId) {
+        ReportDto report = new ReportDto();
+        report.setId(reportId);
+        report.setYear(2024);
+        report.setTrimester("abril-junio");
+
+        ReportWorkshop workshop = ReportWorkshop.builder().id(1).reportId(reportId).workshopName("Taller de música").build();
+        lenient().when(artifactCache.get("reporte_" + reportId + ".pdf")).thenReturn(Optional.empty());
+        lenient().when(pdfVersions.currentVersion(reportId)).thenReturn(Mono.just(0L));
+        when(reportLoader.load(reportId)).thenReturn(Mono.just(report));
+        when(reportWorkshopRepo.findByReportId(reportId)).thenReturn(Flux.just(workshop));
+        return report;
+    }
 }
@@ -0,0 +1,150 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import pe.edu.vallegrande.report_workshop_service.webclient.HttpClientProperties;
+import pe.edu.vallegrande.report_workshop_service.webclient.OutboundCallPolicy;
+import pe.edu.vallegrande.report_workshop_service.webclient.UpstreamOverloadedException;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ✅ Pruebas de la subida en streaming y las consultas a Supabase contra un servidor local.
+ */
+class SupabaseStorageServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private DisposableServer server;
+    private final AtomicReference<String> uploaded = new AtomicReference<>();
+    private final AtomicReference<String> deleted = new AtomicReference<>();
+
+    @BeforeEach
+    void startStubServer() {
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .put("/object/reportes/{path}", (req, res) -> req.receive().aggregate().asString()
+                                .doOnNext(uploaded::set)
+                                .then(res.sendString(Mono.just("{}")).then()))
+                        // 🔸 La búsqueda de Supabase es por prefijo: trae también reporte_10
+                        .post("/object/list/reportes", (req, res) -> res.header("Content-Type", "application/json").sendString(Mono.just(
+                                "[{\"name\":\"reporte_1.pdf\"},{\"name\":\"reporte_1_from_2024-01-01_to_2024-03-31.v1.pdf\"},"
+                                        + "{\"name\":\"reporte_1.v2.pdf\"},{\"name\":\"reporte_10.pdf\"}]")))
+                        // 🔸 Según el nombre: guardado, inexistente (404 o el 400 de Storage) o error del servidor
+                        .get("/object/info/reportes/{path}", (req, res) -> {
+                            String name = req.param("path");
+                            if (name.contains("guardado")) {
+                                return res.sendString(Mono.just("{}"));
+                            }
+                            if (name.contains("viejo")) {
+                                return res.status(400).sendString(Mono.just("{\"statusCode\":\"404\",\"error\":\"not_found\"}"));
+                            }
+                            return res.status(name.contains("caido") ? 500 : 404).send();
+                        })
+                        .delete("/object/reportes", (req, res) -> req.receive().aggregate().asString()
+                                .doOnNext(deleted::set)
+                                .then(res.sendString(Mono.just("[]")).then())))
+                .bindNow();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.disposeNow();
+    }
+
+    private SupabaseStorageService storage(OutboundCallPolicy policy) {
+        return new SupabaseStorageService(WebClient.create("http://localhost:" + server.port()), policy,
+                "https://supabase.local", "reportes");
+    }
+
+    /**
+     * ✅ Prueba que el PDF se suba leyendo el archivo guardado y devuelva su URL pública.
+     */
+    @Test
+    void uploadPdf_fromFile_shouldSendFileContent() throws Exception {
+        Path file = Files.writeString(directory.resolve("reporte_1.pdf"), "%PDF-1.4 contenido");
+        OutboundCallPolicy policy = new OutboundCallPolicy("supabase", new HttpClientProperties.Profile(), new SimpleMeterRegistry());
+
+        StepVerifier.create(storage(policy).uploadPdf("pdf", "reporte_1.pdf", file))
+                .expectNext("https://supabase.local/storage/v1/object/public/reportes/pdf/reporte_1.pdf")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals("%PDF-1.4 contenido", uploaded.get());
+    }
+
+    /**
+     * ✅ Prueba que al invalidar un reporte se borren del bucket sus variantes de versiones anteriores
+     * y solo las suyas: la versión vigente y los demás reportes quedan.
+     */
+    @Test
+    void deleteReportPdfs_shouldDeleteOnlyThatReportsObjects() {
+        OutboundCallPolicy policy = new OutboundCallPolicy("supabase", new HttpClientProperties.Profile(), new SimpleMeterRegistry());
+
+        StepVerifier.create(storage(policy).deleteReportPdfs("pdf", 1, 2))
+                .expectNext(2L)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals("{\"prefixes\":[\"pdf/reporte_1.pdf\",\"pdf/reporte_1_from_2024-01-01_to_2024-03-31.v1.pdf\"]}", deleted.get());
+    }
+
+    /**
+     * ✅ Prueba que solo un objeto inexistente cuente como "no guardado": un error del servidor
+     * o el rechazo del límite de concurrencia se propagan en vez de disparar un render.
+     */
+    @Test
+    void fileExists_onlyNotFoundShouldBeFalse() {
+        HttpClientProperties.Profile profile = new HttpClientProperties.Profile();
+        profile.setInitialLimit(1);
+        OutboundCallPolicy policy = new OutboundCallPolicy("supabase", profile, new SimpleMeterRegistry());
+        SupabaseStorageService storage = storage(policy);
+
+        // 🔸 Ocupa el único lugar del límite
+        var held = policy.limited("hold", Mono.never()).subscribe();
+        StepVerifier.create(storage.fileExists("pdf", "guardado.pdf"))
+                .expectError(UpstreamOverloadedException.class)
+                .verify(Duration.ofSeconds(5));
+        held.dispose();
+
+        StepVerifier.create(storage.fileExists("pdf", "guardado.pdf")).expectNext(true).expectComplete().verify(Duration.ofSeconds(5));
+        StepVerifier.create(storage.fileExists("pdf", "nuevo.pdf")).expectNext(false).expectComplete().verify(Duration.ofSeconds(5));
+        StepVerifier.create(storage.fileExists("pdf", "viejo.pdf")).expectNext(false).expectComplete().verify(Duration.ofSeconds(5));
+        StepVerifier.create(storage.fileExists("pdf", "caido.pdf"))
+                .expectError(WebClientResponseException.InternalServerError.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    /**
+     * ✅ Prueba que una subida rechazada por el límite de concurrencia falle al instante sin abrir el archivo
+     * (aquí no existe: si se leyera, el error sería otro).
+     */
+    @Test
+    void uploadPdf_rejected_shouldFailWithoutReadingFile() {
+        HttpClientProperties.Profile profile = new HttpClientProperties.Profile();
+        profile.setInitialLimit(1);
+        OutboundCallPolicy policy = new OutboundCallPolicy("supabase", profile, new SimpleMeterRegistry());
+        // 🔸 Ocupa el único lugar del límite
+        var held = policy.limited("hold", Mono.never()).subscribe();
+
+        StepVerifier.create(storage(policy).uploadPdf("pdf", "reporte_1.pdf", directory.resolve("no-existe.pdf")))
+                .expectError(UpstreamOverloadedException.class)
+                .verify(Duration.ofSeconds(5));
+
+        held.dispose();
+    }
+}
@@ -0,0 +1,86 @@
+package pe.edu.vallegrande.report_workshop_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pe.edu.vallegrande.report_workshop_service.model.WorkshopCache;
+import pe.edu.vallegrande.report_workshop_service.repository.WorkshopCacheRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkshopCacheStoreTest {
+
+    @Mock
+    private WorkshopCacheRepository repository;
+
+    /**
+     * ✅ Tras la carga inicial, las búsquedas por status y por rango de fechas se resuelven en memoria
+     * y los índices siguen a los cambios aplicados por Kafka.
+     */
+    @Test
+    void upsertAll_shouldKeepSecondaryIndexesInSync() {
+        when(repository.findAll()).thenReturn(Flux.just(
+                workshop(1, "A", LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 12)),
+                workshop(2, "I", LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 3))));
+
+        WorkshopCacheStore store = new WorkshopCacheStore(repository);
+        store.load();
+
+        // 🔸 El taller 2 pasa a activo y cambia de fecha
+        store.upsertAll(List.of(workshop(2, "A", LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 2))));
+
+        StepVerifier.create(store.findAll("a").map(WorkshopCache::getId))
+                .expectNext(1, 2)
+                .verifyComplete();
+        StepVerifier.create(store.findAll("I"))
+                .verifyComplete();
+        StepVerifier.create(store.findByDateRange(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 1)).map(WorkshopCache::getId))
+                .expectNext(2)
+                .verifyComplete();
+
+        verify(repository, times(1)).findAll();
+        verifyNoMoreInteractions(repository);
+    }
+
+    /**
+     * ✅ La resincronización toma los cambios que consumieron otras instancias (altas, ediciones y bajas en la tabla)
+     * sin pisar un evento Kafka aplicado mientras se leía la tabla.
+     */
+    @Test
+    void resync_shouldApplyTableChangesWithoutOverwritingNewerEvents() {
+        when(repository.findAll()).thenReturn(Flux.just(
+                workshop(1, "A", LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 12)),
+                workshop(2, "A", LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 3))));
+
+        WorkshopCacheStore store = new WorkshopCacheStore(repository);
+        store.load();
+
+        // 🔸 Otra instancia desactivó el 1, borró el 2 y agregó el 3; el 3 además llega por Kafka durante la lectura
+        Sinks.One<List<WorkshopCache>> snapshot = Sinks.one();
+        when(repository.findAll()).thenReturn(snapshot.asMono().flatMapMany(Flux::fromIterable));
+        store.resync();
+        store.upsertAll(List.of(workshop(3, "I", LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 2))));
+        snapshot.tryEmitValue(List.of(
+                workshop(1, "I", LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 12)),
+                workshop(3, "A", LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 2))));
+
+        StepVerifier.create(store.findAll(null).map(workshop -> workshop.getId() + workshop.getStatus()))
+                .expectNext("1I", "3I")
+                .verifyComplete();
+        assertEquals(Map.of("I", 2), store.countByStatus());
+    }
+
+    private static WorkshopCache workshop(int id, String status, LocalDate start, LocalDate end) {
+        return WorkshopCache.builder().id(id).name("Taller " + id).status(status).dateStart(start).dateEnd(end).build();
+    }
+}
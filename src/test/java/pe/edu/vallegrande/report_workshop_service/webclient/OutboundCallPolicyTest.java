@@ -0,0 +1,122 @@
+package pe.edu.vallegrande.report_workshop_service.webclient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Pruebas de la política de llamadas salientes contra un servidor local que inyecta latencia.
+ */
+class OutboundCallPolicyTest {
+
+    private DisposableServer server;
+    private WebClient webClient;
+    private final AtomicInteger slowOnceHits = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void startStubServer() {
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/fast", (req, res) -> res.sendString(Mono.just("ok")))
+                        // 🔸 Solo el primer pedido se demora; el hedge debe responder antes
+                        .get("/slow-once", (req, res) -> res.sendString(slowOnceHits.incrementAndGet() == 1
+                                ? Mono.just("lento").delayElement(Duration.ofSeconds(3))
+                                : Mono.just("hedge")))
+                        .get("/slow", (req, res) -> res.sendString(Mono.just("ok").delayElement(Duration.ofMillis(500))))
+                        .get("/error", (req, res) -> res.status(503).sendString(Mono.just("caído"))))
+                .bindNow();
+        webClient = WebClient.create("http://localhost:" + server.port());
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.disposeNow();
+    }
+
+    private Mono<String> get(String path) {
+        return webClient.get().uri(path).retrieve().bodyToMono(String.class);
+    }
+
+    /**
+     * ✅ Prueba que, con latencias normales ya medidas, un pedido lento se resuelva con el hedge
+     * sin esperar la respuesta demorada.
+     */
+    @Test
+    void hedged_slowResponse_shouldUseSecondRequest() {
+        HttpClientProperties.Profile profile = new HttpClientProperties.Profile();
+        profile.setHedgeMinDelay(Duration.ofMillis(20));
+        OutboundCallPolicy policy = new OutboundCallPolicy("stub", profile, meterRegistry);
+
+        // 🔸 Muestras de latencia normales para calcular el p95
+        for (int i = 0; i < profile.getHedgeMinSamples(); i++) {
+            assertEquals("ok", policy.hedged("get", get("/fast")).block(Duration.ofSeconds(5)));
+        }
+
+        long start = System.nanoTime();
+        String body = policy.hedged("get", get("/slow-once")).block(Duration.ofSeconds(5));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals("hedge", body);
+        assertEquals(2, slowOnceHits.get());
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(1)) < 0, "El hedge no respondió a tiempo: " + elapsed);
+        assertEquals(0, policy.inFlight());
+    }
+
+    /**
+     * ✅ Prueba que con el límite lleno los pedidos extra se rechacen de inmediato en lugar de encolarse.
+     */
+    @Test
+    void limited_concurrencyLimitReached_shouldShedLoad() {
+        HttpClientProperties.Profile profile = new HttpClientProperties.Profile();
+        profile.setInitialLimit(2);
+        profile.setMaxLimit(2);
+        OutboundCallPolicy policy = new OutboundCallPolicy("stub", profile, meterRegistry);
+
+        List<String> results = Flux.range(0, 5)
+                .flatMap(i -> policy.limited("get", get("/slow"))
+                        .onErrorResume(UpstreamOverloadedException.class, e -> Mono.just("rechazado")))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(2, results.stream().filter("ok"::equals).count());
+        assertEquals(3, results.stream().filter("rechazado"::equals).count());
+    }
+
+    /**
+     * ✅ Prueba la reducción multiplicativa del límite ante errores 5xx del servicio externo
+     * y que cada pedido fallido se registre en las métricas.
+     */
+    @Test
+    void limited_serverErrors_shouldDecreaseLimit() {
+        HttpClientProperties.Profile profile = new HttpClientProperties.Profile();
+        profile.setInitialLimit(20);
+        profile.setBackoffRatio(0.5);
+        OutboundCallPolicy policy = new OutboundCallPolicy("stub", profile, meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(Exception.class, () -> policy.limited("get", get("/error")).block(Duration.ofSeconds(5)));
+        }
+
+        assertEquals(2, policy.currentLimit());
+
+        // 🔸 Cada error queda medido con su operación, outcome y status
+        assertEquals(3, meterRegistry.get("outbound.call.duration")
+                .tags("client", "stub", "operation", "get", "outcome", "SERVER_ERROR", "status", "503")
+                .timer()
+                .count());
+    }
+}
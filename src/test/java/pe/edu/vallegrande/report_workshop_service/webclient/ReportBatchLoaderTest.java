@@ -0,0 +1,78 @@
+package pe.edu.vallegrande.report_workshop_service.webclient;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportBatchLoaderTest {
+
+    @Mock
+    private ReportCoreClient reportClient;
+
+    /**
+     * ✅ Prueba que pedidos simultáneos con IDs repetidos se resuelvan con una sola llamada al core,
+     * sin IDs duplicados, y que cada suscriptor reciba su reporte (o vacío si no existe).
+     */
+    @Test
+    void load_concurrentRequests_shouldBatchAndDedupe() {
+        when(reportClient.findAllById(anyCollection())).thenAnswer(inv -> {
+            Collection<Integer> ids = inv.getArgument(0);
+            return Flux.fromIterable(ids).filter(id -> id != 99).map(id -> {
+                ReportDto report = new ReportDto();
+                report.setId(id);
+                return report;
+            });
+        });
+        ReportBatchLoader loader = new ReportBatchLoader(reportClient, 500, 50);
+
+        List<Integer> requested = List.of(1, 2, 1, 3, 2, 99);
+        List<ReportDto> results = Flux.fromIterable(requested)
+                .flatMap(id -> loader.load(id).defaultIfEmpty(new ReportDto()))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(requested.size(), results.size());
+        assertEquals(1, results.stream().filter(r -> r.getId() == null).count());
+
+        // 🔸 Una sola llamada con los IDs sin repetir
+        ArgumentCaptor<Collection<Integer>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(reportClient, times(1)).findAllById(ids.capture());
+        assertEquals(Set.of(1, 2, 3, 99), Set.copyOf(ids.getValue()));
+    }
+
+    /**
+     * ✅ Prueba que al llegar a max-keys el lote se despache sin esperar la ventana.
+     */
+    @Test
+    void load_maxKeysReached_shouldDispatchImmediately() {
+        when(reportClient.findAllById(anyCollection())).thenAnswer(inv -> {
+            Collection<Integer> ids = inv.getArgument(0);
+            return Flux.fromIterable(ids).map(id -> {
+                ReportDto report = new ReportDto();
+                report.setId(id);
+                return report;
+            });
+        });
+        ReportBatchLoader loader = new ReportBatchLoader(reportClient, 60_000, 2);
+
+        ReportDto second = Mono.zip(loader.load(1), loader.load(2), (a, b) -> b).block(Duration.ofSeconds(5));
+
+        assertEquals(2, second.getId());
+        verify(reportClient, times(1)).findAllById(anyCollection());
+    }
+}
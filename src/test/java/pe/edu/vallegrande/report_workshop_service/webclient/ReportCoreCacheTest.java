@@ -0,0 +1,170 @@
+package pe.edu.vallegrande.report_workshop_service.webclient;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReportCoreCacheTest {
+
+    /**
+     * ✅ Prueba que una entrada fresca se responda sin volver a llamar al core.
+     */
+    @Test
+    void get_freshEntry_shouldNotCallCoreAgain() {
+        ReportCoreCache cache = new ReportCoreCache(100, 60, 600, false);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(cache.get("reports/1", etag -> {
+                        calls.incrementAndGet();
+                        return Mono.just(ReportCoreCache.Fetched.of("v1", "\"a\""));
+                    }).contextWrite(ctx -> ctx.put("Authorization", "token-1")))
+                    .expectNext("v1")
+                    .verifyComplete();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    /**
+     * ✅ Prueba que dos pedidos simultáneos sin entrada compartan una sola llamada al core
+     * y que, terminada, un error no quede guardado para los pedidos siguientes.
+     */
+    @Test
+    void get_concurrentColdMisses_shouldShareSingleFetch() {
+        ReportCoreCache cache = new ReportCoreCache(100, 60, 600, false);
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<ReportCoreCache.Fetched<String>> core = Sinks.one();
+
+        Mono<String> first = cache.get("reports/2", etag -> {
+            calls.incrementAndGet();
+            return core.asMono();
+        });
+        Mono<String> second = cache.get("reports/2", etag -> {
+            calls.incrementAndGet();
+            return core.asMono();
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> core.tryEmitError(new IllegalStateException("core caído")))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+        assertEquals(1, calls.get());
+
+        // 🔸 La lectura fallida ya no está en curso: el siguiente pedido vuelve a llamar al core
+        StepVerifier.create(cache.get("reports/2", etag -> {
+                    calls.incrementAndGet();
+                    return Mono.just(ReportCoreCache.Fetched.of("v1", null));
+                }))
+                .expectNext("v1")
+                .verifyComplete();
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * ✅ Prueba que un pedido que llega después de una invalidación no se sume a la lectura iniciada antes:
+     * lanza una lectura propia, y el valor viejo de la primera no queda guardado.
+     */
+    @Test
+    void get_invalidatedDuringFetch_shouldNotJoinOrStoreOldFetch() {
+        ReportCoreCache cache = new ReportCoreCache(100, 60, 600, false);
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<ReportCoreCache.Fetched<String>> oldRead = Sinks.one();
+
+        Mono<String> before = cache.get("reports/3", etag -> {
+            calls.incrementAndGet();
+            return oldRead.asMono();
+        });
+
+        StepVerifier.create(before)
+                .then(() -> {
+                    // 🔸 Una escritura invalida el recurso mientras la primera lectura sigue en curso
+                    cache.invalidate("reports/3");
+                    StepVerifier.create(cache.get("reports/3", etag -> {
+                                calls.incrementAndGet();
+                                return Mono.just(ReportCoreCache.Fetched.of("nuevo", null));
+                            }))
+                            .expectNext("nuevo")
+                            .expectComplete()
+                            .verify(Duration.ofSeconds(1));
+                    oldRead.tryEmitValue(ReportCoreCache.Fetched.of("viejo", null));
+                })
+                .expectNext("viejo")
+                .verifyComplete();
+        assertEquals(2, calls.get());
+
+        // 🔸 La caché conserva el valor leído después de la escritura
+        StepVerifier.create(cache.get("reports/3", etag -> {
+                    calls.incrementAndGet();
+                    return Mono.just(ReportCoreCache.Fetched.of("otro", null));
+                }))
+                .expectNext("nuevo")
+                .verifyComplete();
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * ✅ Prueba stale-while-revalidate: pasada la TTL se responde el valor anterior
+     * y se revalida en segundo plano enviando el ETag guardado.
+     */
+    @Test
+    void get_staleEntry_shouldServeOldValueAndRevalidateWithEtag() {
+        ReportCoreCache cache = new ReportCoreCache(100, 0, 600, false);
+        List<String> sentEtags = new ArrayList<>();
+
+        StepVerifier.create(cache.get("reports", etag -> {
+                    sentEtags.add(etag);
+                    return Mono.just(ReportCoreCache.Fetched.of("v1", "\"a\""));
+                }))
+                .expectNext("v1")
+                .verifyComplete();
+
+        // 🔸 El core responde 304: se conserva el valor y se renueva la entrada
+        StepVerifier.create(cache.get("reports", etag -> {
+                    sentEtags.add(etag);
+                    return Mono.just(ReportCoreCache.Fetched.<String>notModifiedResponse());
+                }))
+                .expectNext("v1")
+                .verifyComplete();
+
+        assertEquals(Arrays.asList(null, "\"a\""), sentEtags);
+    }
+
+    /**
+     * ✅ Prueba que las respuestas no se mezclen entre usuarios con distinto JWT
+     * y que invalidar un recurso lo quite para todos.
+     */
+    @Test
+    void get_differentTokens_shouldUseSeparateEntries() {
+        ReportCoreCache cache = new ReportCoreCache(100, 60, 600, false);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (String token : List.of("token-1", "token-2", "token-1")) {
+            StepVerifier.create(cache.get("reports", etag -> {
+                                calls.incrementAndGet();
+                                return Mono.just(ReportCoreCache.Fetched.of(token, null));
+                            })
+                            .contextWrite(ctx -> ctx.put("Authorization", token)))
+                    .expectNext(token)
+                    .verifyComplete();
+        }
+
+        // 🔸 Un fetch por usuario; el segundo pedido de token-1 sale de la caché
+        assertEquals(2, calls.get());
+
+        cache.invalidate("reports");
+        StepVerifier.create(cache.get("reports", etag -> Mono.just(ReportCoreCache.Fetched.of("nuevo", null)))
+                        .contextWrite(ctx -> ctx.put("Authorization", "token-1")))
+                .expectNext("nuevo")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+    }
+}
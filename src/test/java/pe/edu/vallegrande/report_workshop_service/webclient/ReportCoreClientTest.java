@@ -0,0 +1,99 @@
+package pe.edu.vallegrande.report_workshop_service.webclient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import pe.edu.vallegrande.report_workshop_service.dto.ReportDto;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReportCoreClientTest {
+
+    private final List<URI> requests = new CopyOnWriteArrayList<>();
+
+    /**
+     * 🔸 Cliente contra un core simulado que responde cada página con los JSON indicados, en orden.
+     */
+    private ReportCoreClient client(Set<String> supportedFilters, int pageSize, String... pages) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.add(request.url());
+                    String body = requests.size() <= pages.length ? pages[requests.size() - 1] : "[]";
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(body)
+                            .build());
+                })
+                .build();
+        ReportCoreClient client = new ReportCoreClient(webClient, new ReportCoreCache(100, 60, 600, false),
+                new OutboundCallPolicy("core-service", new HttpClientProperties.Profile(), new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(client, "supportedFilters", supportedFilters);
+        ReflectionTestUtils.setField(client, "pageSize", pageSize);
+        return client;
+    }
+
+    /**
+     * ✅ Prueba que los filtros soportados viajen como query params y que las páginas se pidan
+     * hasta recibir una incompleta.
+     */
+    @Test
+    void findFiltered_shouldPushFiltersAndFollowPages() {
+        ReportCoreClient client = client(Set.of("status", "trimester", "year"), 2,
+                "[{\"id\":1,\"year\":2024,\"status\":\"A\"},{\"id\":2,\"year\":2024,\"status\":\"A\"}]",
+                "[{\"id\":3,\"year\":2024,\"status\":\"A\"}]");
+
+        StepVerifier.create(client.findFiltered("A", null, 2024).map(ReportDto::getId))
+                .expectNext(1, 2, 3)
+                .verifyComplete();
+
+        assertEquals(2, requests.size());
+        assertEquals("status=A&year=2024&page=0&size=2", requests.get(0).getQuery());
+        assertEquals("status=A&year=2024&page=1&size=2", requests.get(1).getQuery());
+    }
+
+    /**
+     * ✅ Prueba el respaldo: un filtro que el core no soporta se aplica localmente,
+     * y si el core ignora la paginación no se piden páginas repetidas.
+     */
+    @Test
+    void findFiltered_unsupportedFilter_shouldFilterLocally() {
+        String allReports = "[{\"id\":1,\"trimester\":\"enero-marzo\"},{\"id\":2,\"trimester\":\"abril-junio\"}]";
+        ReportCoreClient client = client(Set.of("status", "year"), 2, allReports, allReports);
+
+        StepVerifier.create(client.findFiltered(null, "abril-junio", null).map(ReportDto::getId))
+                .expectNext(2)
+                .verifyComplete();
+
+        assertEquals(2, requests.size());
+        assertEquals("page=0&size=2", requests.get(0).getQuery());
+    }
+
+    /**
+     * ✅ Prueba que aunque el core ignore los filtros enviados, el resultado se filtre igual localmente.
+     */
+    @Test
+    void findFiltered_coreIgnoresFilters_shouldStillFilterLocally() {
+        ReportCoreClient client = client(Set.of("status", "trimester", "year"), 0,
+                "[{\"id\":1,\"year\":2023,\"status\":\"A\"},{\"id\":2,\"year\":2024,\"status\":\"I\"},"
+                        + "{\"id\":3,\"year\":2024,\"status\":\"A\"}]");
+
+        StepVerifier.create(client.findFiltered("A", null, 2024).map(ReportDto::getId))
+                .expectNext(3)
+                .verifyComplete();
+
+        assertEquals(1, requests.size());
+        assertEquals("status=A&year=2024", requests.get(0).getQuery());
+    }
+}